@@ -0,0 +1,25 @@
+package io.github.mooy1.infinitylib.benchmarks;
+
+import io.github.mooy1.infinitylib.core.AbstractAddon;
+import io.github.mooy1.infinitylib.core.Environment;
+
+/**
+ * The addon that benchmarked machines are registered to
+ */
+public final class BenchmarkAddon extends AbstractAddon {
+
+    public BenchmarkAddon() {
+        super("Mooy1", "InfinityLib", "master", "auto-update", Environment.LIBRARY_TESTING);
+    }
+
+    @Override
+    protected void enable() {
+
+    }
+
+    @Override
+    protected void disable() {
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package io.github.mooy1.infinitylib.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import lombok.experimental.UtilityClass;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.inventory.ItemStack;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+
+import io.github.mooy1.infinitylib.core.AbstractAddon;
+import io.github.thebusybiscuit.slimefun4.api.items.ItemGroup;
+import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
+import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItemStack;
+import io.github.thebusybiscuit.slimefun4.api.recipes.RecipeType;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+
+/**
+ * Starts a stub server with Slimefun and a benchmark addon loaded, once per benchmark fork
+ */
+@UtilityClass
+public final class BenchmarkServer {
+
+    private static ServerMock server;
+    private static BenchmarkAddon addon;
+    private static ItemGroup group;
+    private static List<Material> materials;
+
+    @Nonnull
+    public static synchronized BenchmarkAddon start() {
+        if (server == null) {
+            server = MockBukkit.mock();
+            MockBukkit.load(Slimefun.class);
+            addon = MockBukkit.load(BenchmarkAddon.class);
+            group = new ItemGroup(AbstractAddon.createKey("benchmarks"), new ItemStack(Material.DIAMOND));
+            group.register(addon);
+            materials = Arrays.stream(Material.values())
+                    .filter(material -> !material.isLegacy() && material.isItem() && !material.isAir())
+                    .toList();
+        }
+        return addon;
+    }
+
+    @Nonnull
+    public static ItemGroup group() {
+        start();
+        return group;
+    }
+
+    @Nonnull
+    public static World world() {
+        start();
+        World world = server.getWorld("world");
+        return world == null ? server.addSimpleWorld("world") : world;
+    }
+
+    /**
+     * Returns every non legacy item material in a stable order, for building distinct recipes
+     */
+    @Nonnull
+    public static List<Material> materials() {
+        start();
+        return materials;
+    }
+
+    /**
+     * Registers a plain slimefun item with the given id, or returns its item if it already exists
+     */
+    @Nonnull
+    public static ItemStack slimefunItem(String id, Material material) {
+        BenchmarkAddon addon = start();
+        SlimefunItem existing = SlimefunItem.getById(id);
+        if (existing != null) {
+            return existing.getItem().clone();
+        }
+        SlimefunItem item = new SlimefunItem(group, new SlimefunItemStack(id, material, "&b" + id),
+                RecipeType.NULL, new ItemStack[9]);
+        item.register(addon);
+        return item.getItem().clone();
+    }
+
+}
@@ -0,0 +1,150 @@
+package io.github.mooy1.infinitylib.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataAdapterContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mooy1.infinitylib.common.PersistentType;
+
+/**
+ * Measures encoding and decoding of the {@link PersistentType} codecs, lists hold {@link #size} elements.
+ * The plain decode benchmarks cycle through {@link #PAYLOADS} distinct values so they measure the codec,
+ * the cached ones decode the same bytes every call so they measure a decode cache hit
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistentTypeBenchmark {
+
+    private static final int PAYLOADS = 1024;
+
+    @Param({ "1", "10", "100" })
+    public int size;
+
+    private PersistentDataAdapterContext context;
+    private ItemStack item;
+    private byte[] itemBytes;
+    private List<ItemStack> items;
+    private byte[] itemsBytes;
+    private List<String> strings;
+    private byte[] stringsBytes;
+    private Location location;
+    private long[] locationLongs;
+    private byte[][] itemPayloads;
+    private byte[][] itemsPayloads;
+    private byte[][] stringsPayloads;
+    private int payload;
+
+    @Setup
+    public void setup() {
+        item = BenchmarkServer.slimefunItem("BENCHMARK_INPUT", Material.IRON_INGOT);
+        context = item.getItemMeta().getPersistentDataContainer().getAdapterContext();
+        items = new ArrayList<>(size);
+        strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(i % 2 == 0 ? item.clone() : new ItemStack(Material.COBBLESTONE, i % 64 + 1));
+            strings.add("string-" + i);
+        }
+        location = new Location(BenchmarkServer.world(), 123, 64, -456);
+
+        itemBytes = PersistentType.ITEM_STACK.toPrimitive(item, context);
+        itemsBytes = PersistentType.ITEM_STACK_LIST.toPrimitive(items, context);
+        stringsBytes = PersistentType.STRING_LIST.toPrimitive(strings, context);
+        locationLongs = PersistentType.LOCATION.toPrimitive(location, context);
+
+        // more distinct values than the decode caches hold, so that every decode misses
+        List<Material> materials = BenchmarkServer.materials();
+        itemPayloads = new byte[PAYLOADS][];
+        itemsPayloads = new byte[PAYLOADS][];
+        stringsPayloads = new byte[PAYLOADS][];
+        for (int i = 0; i < PAYLOADS; i++) {
+            ItemStack variant = new ItemStack(materials.get(i % materials.size()), i / materials.size() % 64 + 1);
+            List<ItemStack> variantItems = new ArrayList<>(items);
+            variantItems.set(0, variant);
+            List<String> variantStrings = new ArrayList<>(strings);
+            variantStrings.set(0, "variant-" + i);
+            itemPayloads[i] = PersistentType.ITEM_STACK.toPrimitive(variant, context);
+            itemsPayloads[i] = PersistentType.ITEM_STACK_LIST.toPrimitive(variantItems, context);
+            stringsPayloads[i] = PersistentType.STRING_LIST.toPrimitive(variantStrings, context);
+        }
+    }
+
+    private int nextPayload() {
+        return payload = (payload + 1) & (PAYLOADS - 1);
+    }
+
+    @Benchmark
+    public byte[] encodeItemStack() {
+        return PersistentType.ITEM_STACK.toPrimitive(item, context);
+    }
+
+    @Benchmark
+    public ItemStack decodeItemStack() {
+        return PersistentType.ITEM_STACK.fromPrimitive(itemPayloads[nextPayload()], context);
+    }
+
+    @Benchmark
+    public ItemStack decodeItemStackCached() {
+        return PersistentType.ITEM_STACK.fromPrimitive(itemBytes, context);
+    }
+
+    @Benchmark
+    public byte[] encodeItemStackList() {
+        return PersistentType.ITEM_STACK_LIST.toPrimitive(items, context);
+    }
+
+    @Benchmark
+    public List<ItemStack> decodeItemStackList() {
+        return PersistentType.ITEM_STACK_LIST.fromPrimitive(itemsPayloads[nextPayload()], context);
+    }
+
+    @Benchmark
+    public List<ItemStack> decodeItemStackListCached() {
+        return PersistentType.ITEM_STACK_LIST.fromPrimitive(itemsBytes, context);
+    }
+
+    @Benchmark
+    public byte[] encodeStringList() {
+        return PersistentType.STRING_LIST.toPrimitive(strings, context);
+    }
+
+    @Benchmark
+    public List<String> decodeStringList() {
+        return PersistentType.STRING_LIST.fromPrimitive(stringsPayloads[nextPayload()], context);
+    }
+
+    @Benchmark
+    public List<String> decodeStringListCached() {
+        return PersistentType.STRING_LIST.fromPrimitive(stringsBytes, context);
+    }
+
+    @Benchmark
+    public long[] encodeLocation() {
+        return PersistentType.LOCATION.toPrimitive(location, context);
+    }
+
+    @Benchmark
+    public Location decodeLocation() {
+        return PersistentType.LOCATION.fromPrimitive(locationLongs, context);
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.github.mooy1.infinitylib.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mooy1.infinitylib.common.StackUtils;
+import io.github.thebusybiscuit.slimefun4.libraries.dough.items.ItemStackSnapshot;
+
+import net.kyori.adventure.text.Component;
+
+/**
+ * Measures {@link StackUtils#getId(ItemStack)} and {@link StackUtils#isSimilar(ItemStack, ItemStack)}
+ * for plain, slimefun, named and snapshot stacks
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackUtilsBenchmark {
+
+    private ItemStack vanilla;
+    private ItemStack otherVanilla;
+    private ItemStack slimefun;
+    private ItemStack otherSlimefun;
+    private ItemStack named;
+    private ItemStack otherNamed;
+    private ItemStack snapshot;
+    private ItemStack otherSnapshot;
+
+    @Setup
+    public void setup() {
+        vanilla = new ItemStack(Material.IRON_INGOT, 32);
+        otherVanilla = new ItemStack(Material.IRON_INGOT, 16);
+        slimefun = BenchmarkServer.slimefunItem("BENCHMARK_INPUT", Material.IRON_INGOT);
+        otherSlimefun = slimefun.clone();
+        named = named("Named Ingot");
+        otherNamed = named("Named Ingot");
+        snapshot = ItemStackSnapshot.wrap(slimefun);
+        otherSnapshot = ItemStackSnapshot.wrap(otherSlimefun);
+    }
+
+    private static ItemStack named(String name) {
+        ItemStack item = new ItemStack(Material.IRON_INGOT);
+        ItemMeta meta = item.getItemMeta();
+        meta.displayName(Component.text(name));
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    @Benchmark
+    public String getIdVanilla() {
+        return StackUtils.getId(vanilla);
+    }
+
+    @Benchmark
+    public String getIdSlimefun() {
+        return StackUtils.getId(slimefun);
+    }
+
+    @Benchmark
+    public String getIdSnapshot() {
+        return StackUtils.getId(snapshot);
+    }
+
+    @Benchmark
+    public boolean isSimilarVanilla() {
+        return StackUtils.isSimilar(vanilla, otherVanilla);
+    }
+
+    @Benchmark
+    public boolean isSimilarSlimefun() {
+        return StackUtils.isSimilar(slimefun, otherSlimefun);
+    }
+
+    @Benchmark
+    public boolean isSimilarNamed() {
+        return StackUtils.isSimilar(named, otherNamed);
+    }
+
+    @Benchmark
+    public boolean isSimilarSnapshots() {
+        return StackUtils.isSimilar(snapshot, otherSnapshot);
+    }
+
+}
@@ -0,0 +1,81 @@
+package io.github.mooy1.infinitylib.machines;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mooy1.infinitylib.benchmarks.BenchmarkServer;
+import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItemStack;
+import io.github.thebusybiscuit.slimefun4.api.recipes.RecipeType;
+
+/**
+ * Measures {@link CraftingBlock#getOutput(ItemStack[])} on a full 3x3 grid,
+ * with the matching recipe added last so a linear scan would hit its worst case
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CraftingBlockBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int recipes;
+
+    private CraftingBlock block;
+    private ItemStack[] hit;
+    private ItemStack[] miss;
+
+    @Setup
+    public void setup() {
+        List<Material> materials = BenchmarkServer.materials();
+        block = new CraftingBlock(BenchmarkServer.group(),
+                new SlimefunItemStack("BENCHMARK_CRAFTER_" + recipes, Material.CRAFTING_TABLE, "&bBenchmark Crafter"),
+                RecipeType.NULL, new ItemStack[9]);
+
+        ItemStack slimefunInput = BenchmarkServer.slimefunItem("BENCHMARK_INPUT", Material.IRON_INGOT);
+        for (int i = 0; i < recipes; i++) {
+            block.addRecipe(new ItemStack(Material.DIAMOND), grid(materials, i, slimefunInput));
+        }
+
+        hit = grid(materials, recipes - 1, slimefunInput);
+        miss = grid(materials, recipes, slimefunInput);
+    }
+
+    /**
+     * A grid with a unique center, surrounded by a slimefun item and a shared vanilla item
+     */
+    private static ItemStack[] grid(List<Material> materials, int i, ItemStack slimefunInput) {
+        ItemStack[] grid = new ItemStack[9];
+        for (int slot = 0; slot < 9; slot++) {
+            grid[slot] = slot % 2 == 0 ? slimefunInput.clone() : new ItemStack(Material.STICK);
+        }
+        grid[4] = new ItemStack(materials.get(i % materials.size()));
+        return grid;
+    }
+
+    @Benchmark
+    public CraftingBlockRecipe hit() {
+        return block.getOutput(hit);
+    }
+
+    @Benchmark
+    public CraftingBlockRecipe miss() {
+        return block.getOutput(miss);
+    }
+
+}
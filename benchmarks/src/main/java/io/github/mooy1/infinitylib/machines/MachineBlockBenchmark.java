@@ -0,0 +1,89 @@
+package io.github.mooy1.infinitylib.machines;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mooy1.infinitylib.benchmarks.BenchmarkServer;
+import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItemStack;
+import io.github.thebusybiscuit.slimefun4.api.recipes.RecipeType;
+
+/**
+ * Measures {@link MachineBlock#getOutput(ItemStack[])} including reading the input,
+ * with the matching recipe registered last so a linear scan would hit its worst case.
+ * Only uses that method, which has the same signature in older versions, so it can measure them too
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MachineBlockBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int recipes;
+
+    private MachineBlock machine;
+    private ItemStack[] vanillaHit;
+    private ItemStack[] slimefunHit;
+    private ItemStack[] miss;
+
+    @Setup
+    public void setup() {
+        List<Material> materials = BenchmarkServer.materials();
+        machine = new MachineBlock(BenchmarkServer.group(),
+                new SlimefunItemStack("BENCHMARK_MACHINE_" + recipes, Material.FURNACE, "&bBenchmark Machine"),
+                RecipeType.NULL, new ItemStack[9]);
+        machine.ticksPerOutput(1);
+        machine.energyPerTick(1);
+
+        ItemStack slimefunInput = BenchmarkServer.slimefunItem("BENCHMARK_INPUT", Material.IRON_INGOT);
+        machine.addRecipe(new ItemStack(Material.DIAMOND), slimefunInput, new ItemStack(Material.IRON_INGOT));
+        for (int i = 1; i < recipes; i++) {
+            machine.addRecipe(new ItemStack(Material.DIAMOND),
+                    new ItemStack(materials.get(i % materials.size()), 2),
+                    new ItemStack(materials.get((i + 1) % materials.size())));
+        }
+        machine.register(BenchmarkServer.start());
+
+        vanillaHit = new ItemStack[] {
+                new ItemStack(materials.get((recipes - 1) % materials.size()), 64),
+                new ItemStack(materials.get(recipes % materials.size()), 64)
+        };
+        slimefunHit = new ItemStack[] { slimefunInput, new ItemStack(Material.IRON_INGOT) };
+        miss = new ItemStack[] {
+                new ItemStack(materials.get((recipes - 1) % materials.size()), 1),
+                BenchmarkServer.slimefunItem("BENCHMARK_UNUSED", Material.GOLD_INGOT)
+        };
+    }
+
+    @Benchmark
+    public Object vanillaHit() {
+        return machine.getOutput(vanillaHit);
+    }
+
+    @Benchmark
+    public Object slimefunHit() {
+        return machine.getOutput(slimefunHit);
+    }
+
+    @Benchmark
+    public Object miss() {
+        return machine.getOutput(miss);
+    }
+
+}
@@ -0,0 +1,137 @@
+package io.github.mooy1.infinitylib.common;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A thread safe version of {@link CoolDowns} based on {@link System#nanoTime()}. Entries older than the
+ * cool down are dropped when checked and by {@link #sweep()}, so the cool downs of players who left don't
+ * pile up. The primitive store keeps uuids and times in long arrays instead of boxing them.
+ */
+@ParametersAreNonnullByDefault
+public final class ConcurrentCoolDowns {
+
+    private final long cd;
+    @Nullable
+    private final Map<UUID, Long> map;
+    @Nullable
+    private final CoolDownTable table;
+
+    /**
+     * @param cd the cool down in milliseconds
+     */
+    public ConcurrentCoolDowns(long cd) {
+        this(cd, false);
+    }
+
+    /**
+     * @param cd the cool down in milliseconds
+     * @param primitive whether to use the primitive store, which locks on each call but doesn't allocate
+     */
+    public ConcurrentCoolDowns(long cd, boolean primitive) {
+        this.cd = TimeUnit.MILLISECONDS.toNanos(cd);
+        this.map = primitive ? null : new ConcurrentHashMap<>();
+        this.table = primitive ? new CoolDownTable() : null;
+    }
+
+    public boolean check(UUID uuid) {
+        long now = System.nanoTime();
+        if (table != null) {
+            long time = table.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (time == CoolDownTable.EMPTY) {
+                return true;
+            }
+            if (now - time >= cd) {
+                table.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), time);
+                return true;
+            }
+            return false;
+        }
+
+        Long time = map.get(uuid);
+        if (time == null) {
+            return true;
+        }
+        if (now - time >= cd) {
+            map.remove(uuid, time);
+            return true;
+        }
+        return false;
+    }
+
+    public void reset(UUID uuid) {
+        long now = System.nanoTime();
+        if (table != null) {
+            table.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), now);
+        }
+        else {
+            map.put(uuid, now);
+        }
+    }
+
+    /**
+     * Checks and resets atomically, so only one of several threads checking at once succeeds
+     */
+    public boolean checkAndReset(UUID uuid) {
+        long now = System.nanoTime();
+        if (table != null) {
+            return table.putIfExpired(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), now, cd);
+        }
+
+        // one compute so that a check or sweep removing the entry can't slip between reading and replacing it
+        boolean[] reset = new boolean[1];
+        map.compute(uuid, (key, time) -> {
+            if (time == null || now - time >= cd) {
+                reset[0] = true;
+                return now;
+            }
+            return time;
+        });
+        return reset[0];
+    }
+
+    /**
+     * Removes all expired entries
+     */
+    public void sweep() {
+        long now = System.nanoTime();
+        if (table != null) {
+            table.removeExpired(now, cd);
+        }
+        else {
+            map.values().removeIf(time -> now - time >= cd);
+        }
+    }
+
+    /**
+     * Sweeps asynchronously every interval for as long as the addon is enabled
+     */
+    @Nonnull
+    public ConcurrentCoolDowns sweepEvery(int intervalTicks) {
+        Scheduler.repeatAsync(intervalTicks, this::sweep);
+        return this;
+    }
+
+    /**
+     * Returns the number of entries, including expired ones that weren't removed yet
+     */
+    public int size() {
+        return table != null ? table.size() : map.size();
+    }
+
+    public void clear() {
+        if (table != null) {
+            table.clear();
+        }
+        else {
+            map.clear();
+        }
+    }
+
+}
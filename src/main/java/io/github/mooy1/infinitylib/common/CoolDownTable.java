@@ -0,0 +1,170 @@
+package io.github.mooy1.infinitylib.common;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing table from uuids, stored as their two halves, to primitive times,
+ * so that storing a cool down doesn't box anything. Every method locks the table.
+ */
+final class CoolDownTable {
+
+    static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] msbs;
+    private long[] lsbs;
+    private long[] times;
+    private int mask;
+    private int size;
+
+    CoolDownTable() {
+        allocate(16);
+    }
+
+    synchronized long get(long msb, long lsb) {
+        int i = find(msb, lsb);
+        return i == -1 ? EMPTY : times[i];
+    }
+
+    synchronized void put(long msb, long lsb, long time) {
+        int i = find(msb, lsb);
+        if (i == -1) {
+            insert(msb, lsb, time);
+            if (++size * 2 > times.length) {
+                rehash(times.length << 1);
+            }
+        }
+        else {
+            times[i] = time;
+        }
+    }
+
+    /**
+     * Sets the time if there is none or the current one is at least cd old, returns whether it did
+     */
+    synchronized boolean putIfExpired(long msb, long lsb, long now, long cd) {
+        int i = find(msb, lsb);
+        if (i == -1) {
+            put(msb, lsb, now);
+            return true;
+        }
+        if (now - times[i] >= cd) {
+            times[i] = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the entry if its time is the given one
+     */
+    synchronized void remove(long msb, long lsb, long time) {
+        int i = find(msb, lsb);
+        if (i != -1 && times[i] == time) {
+            removeAt(i);
+            size--;
+        }
+    }
+
+    /**
+     * Removes all entries at least cd old and shrinks the table to fit the rest
+     */
+    synchronized void removeExpired(long now, long cd) {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        long[] oldTimes = times;
+        int live = 0;
+        for (long time : oldTimes) {
+            if (time != EMPTY && now - time < cd) {
+                live++;
+            }
+        }
+        int capacity = 16;
+        while (capacity < live * 4) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+        size = live;
+        for (int i = 0; i < oldTimes.length; i++) {
+            if (oldTimes[i] != EMPTY && now - oldTimes[i] < cd) {
+                insert(oldMsbs[i], oldLsbs[i], oldTimes[i]);
+            }
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void clear() {
+        allocate(16);
+        size = 0;
+    }
+
+    private int slot(long msb, long lsb) {
+        long hash = msb ^ lsb;
+        int h = (int) (hash ^ hash >>> 32);
+        return (h ^ h >>> 16) & mask;
+    }
+
+    private int find(long msb, long lsb) {
+        for (int i = slot(msb, lsb); times[i] != EMPTY; i = (i + 1) & mask) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long msb, long lsb, long time) {
+        int i = slot(msb, lsb);
+        while (times[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        msbs[i] = msb;
+        lsbs[i] = lsb;
+        times[i] = time;
+    }
+
+    /**
+     * Shifts back the entries after the removed one so that no lookup stops early at the gap
+     */
+    private void removeAt(int i) {
+        int j = i;
+        while (true) {
+            times[i] = EMPTY;
+            int k;
+            do {
+                j = (j + 1) & mask;
+                if (times[j] == EMPTY) {
+                    return;
+                }
+                k = slot(msbs[j], lsbs[j]);
+            } while (i <= j ? i < k && k <= j : i < k || k <= j);
+            msbs[i] = msbs[j];
+            lsbs[i] = lsbs[j];
+            times[i] = times[j];
+            i = j;
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        long[] oldTimes = times;
+        allocate(capacity);
+        for (int i = 0; i < oldTimes.length; i++) {
+            if (oldTimes[i] != EMPTY) {
+                insert(oldMsbs[i], oldLsbs[i], oldTimes[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        times = new long[capacity];
+        Arrays.fill(times, EMPTY);
+        mask = capacity - 1;
+    }
+
+}
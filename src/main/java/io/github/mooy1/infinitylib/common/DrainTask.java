@@ -0,0 +1,50 @@
+package io.github.mooy1.infinitylib.common;
+
+import java.util.function.BooleanSupplier;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * A task repeating every tick on the main thread, started when work is added and cancelled by itself
+ * once there is none left. Add the work before calling {@link #start()} so that it can't be stranded
+ */
+@ParametersAreNonnullByDefault
+final class DrainTask {
+
+    private final Runnable tick;
+    private final BooleanSupplier idle;
+    @Nullable
+    private BukkitTask task;
+
+    DrainTask(Runnable tick, BooleanSupplier idle) {
+        this.tick = tick;
+        this.idle = idle;
+    }
+
+    synchronized void start() {
+        // tasks are cancelled when the addon disables, so a cancelled task is replaced too
+        if (task == null || task.isCancelled()) {
+            task = Scheduler.repeat(1, this::run);
+        }
+    }
+
+    synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void run() {
+        tick.run();
+        synchronized (this) {
+            if (idle.getAsBoolean()) {
+                stop();
+            }
+        }
+    }
+
+}
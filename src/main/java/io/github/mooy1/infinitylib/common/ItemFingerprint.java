@@ -0,0 +1,46 @@
+package io.github.mooy1.infinitylib.common;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import net.kyori.adventure.text.Component;
+
+/**
+ * The parts of an item's meta that {@link StackUtils#isSimilar(ItemStack, ItemStack)} compares
+ */
+@ParametersAreNonnullByDefault
+final class ItemFingerprint {
+
+    private static final ItemFingerprint NONE = new ItemFingerprint(null, null);
+
+    final String id;
+    final Component name;
+    private final int nameHash;
+
+    private ItemFingerprint(@Nullable String id, @Nullable Component name) {
+        this.id = id;
+        this.name = name;
+        this.nameHash = name == null ? 0 : name.hashCode();
+    }
+
+    @Nonnull
+    static ItemFingerprint of(ItemStack item) {
+        if (!item.hasItemMeta()) {
+            return NONE;
+        }
+        ItemMeta meta = item.getItemMeta();
+        return new ItemFingerprint(StackUtils.getId(meta), meta.hasDisplayName() ? meta.displayName() : null);
+    }
+
+    boolean sameName(ItemFingerprint other) {
+        if (name == null) {
+            return other.name == null;
+        }
+        return other.name != null && nameHash == other.nameHash && name.equals(other.name);
+    }
+
+}
@@ -1,18 +1,34 @@
 package io.github.mooy1.infinitylib.common;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 import io.github.thebusybiscuit.slimefun4.libraries.dough.items.CustomItemStack;
 
+import io.papermc.paper.math.BlockPosition;
+import io.papermc.paper.math.Position;
 import lombok.RequiredArgsConstructor;
 
 import org.bukkit.Bukkit;
@@ -21,6 +37,8 @@ import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.persistence.PersistentDataAdapterContext;
 import org.bukkit.persistence.PersistentDataType;
@@ -39,95 +57,50 @@ import org.slf4j.LoggerFactory;
 public final class PersistentType<T, Z> implements PersistentDataType<T, Z> {
     private static final Logger log = LoggerFactory.getLogger(PersistentType.class);
 
+    /**
+     * Marks binary payloads, legacy payloads are yaml text which never starts with a zero byte
+     */
+    private static final byte BINARY = 0;
+    private static final byte COMPRESSED = 1;
+
+    /**
+     * Decoded values of the byte array types are cached by payload so that reading
+     * the same data again, such as from an unchanged item, doesn't decode it again
+     */
+    private static final List<SlotCache<byte[], ?>> DECODE_CACHES = new CopyOnWriteArrayList<>();
+    private static final CacheStats DECODE_STATS = new CacheStats();
+    private static volatile int decodeCacheSize = 256;
+
     public static final PersistentDataType<byte[], ItemStack> ITEM_STACK = new PersistentType<>(
             byte[].class, ItemStack.class,
             (ItemStack itemStack) -> {
                 try {
-                    Map<String, Object> m = itemStack.serialize();
-                    YamlConfiguration yml = new YamlConfiguration();
-                    yml.set("i", m);
-                    return yml.saveToString().getBytes(StandardCharsets.UTF_8);
+                    return binary(serializeItem(itemStack), false);
                 } catch (Exception e) {
                     log.error("Failed to serialize ItemStack.", e);
                     return new byte[0];
                 }
             },
-            arr -> {
+            cached(arr -> {
                 if (arr.length == 0) return CustomItemStack.create(Material.STONE, "&cERROR");
+                if (arr[0] != BINARY) return legacyItemStack(arr);
 
                 try {
-                    String s = new String(arr, StandardCharsets.UTF_8);
-                    YamlConfiguration yml = new YamlConfiguration();
-                    yml.loadFromString(s);
-
-                    Object raw = yml.get("i");
-                    if (!(raw instanceof Map)) {
-                        log.error("ItemStack YAML missing 'i' map or wrong type: {}", raw == null ? "null" : raw.getClass());
-                        return CustomItemStack.create(Material.STONE, "&cERROR");
-                    }
-
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> m = (Map<String, Object>) raw;
-
-                    return ItemStack.deserialize(m);
-                } catch (InvalidConfigurationException ex) {
-                    log.error("Invalid YAML while deserializing ItemStack.", ex);
-                    return CustomItemStack.create(Material.STONE, "&cERROR");
+                    return deserializeItem(body(arr));
                 } catch (Exception e) {
                     log.error("Failed to deserialize ItemStack.", e);
                     return CustomItemStack.create(Material.STONE, "&cERROR");
                 }
-            }
+            }, ItemStack::clone)
     );
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    public static final PersistentDataType<byte[], List<ItemStack>> ITEM_STACK_LIST = new PersistentType<byte[], List<ItemStack>>(
-            byte[].class, (Class) List.class,
-            list -> {
-                try {
-                    YamlConfiguration yml = new YamlConfiguration();
-                    List<Map<String, Object>> serialized = new ArrayList<>(list.size());
-                    for (ItemStack item : list) {
-                        serialized.add(item.serialize());
-                    }
-                    yml.set("items", serialized);
-                    return yml.saveToString().getBytes(StandardCharsets.UTF_8);
-                } catch (Exception e) {
-                    log.error("Failed to serialize ItemStack list.", e);
-                    return new byte[0];
-                }
-            },
-            arr -> {
-                List<ItemStack> out = new ArrayList<>();
-                if (arr.length == 0) return out;
-
-                try {
-                    String s = new String(arr, StandardCharsets.UTF_8);
-                    YamlConfiguration yml = new YamlConfiguration();
-                    yml.loadFromString(s);
-
-                    Object raw = yml.get("items");
-                    if (!(raw instanceof List<?> rawList)) {
-                        log.error("ItemStack list YAML missing 'items' list or wrong type: {}", raw == null ? "null" : raw.getClass());
-                        return out;
-                    }
+    public static final PersistentDataType<byte[], List<ItemStack>> ITEM_STACK_LIST = itemStackList(false);
 
-                    for (Object o : rawList) {
-                        if (o instanceof Map<?, ?> map) {
-                            Map<String, Object> cast = (Map<String, Object>) map;
-                            out.add(ItemStack.deserialize(cast));
-                        } else {
-                            log.warn("Skipping non-map element in 'items': {}", o == null ? "null" : o.getClass());
-                        }
-                    }
-                } catch (InvalidConfigurationException ex) {
-                    log.error("Invalid YAML while deserializing ItemStack list.", ex);
-                } catch (Exception e) {
-                    log.error("Failed to deserialize ItemStack list.", e);
-                }
-                return out;
-            }
-    );
+    /**
+     * Same as {@link #ITEM_STACK_LIST} but deflates the list, worth it for large lists of similar items,
+     * both types read either format
+     */
+    public static final PersistentDataType<byte[], List<ItemStack>> COMPRESSED_ITEM_STACK_LIST = itemStackList(true);
 
     public static final PersistentDataType<long[], Location> LOCATION = new PersistentDataType<long[], Location>() {
         @Override
@@ -166,50 +139,430 @@ public final class PersistentType<T, Z> implements PersistentDataType<T, Z> {
             long msb = data[3];
             long lsb = data[4];
 
-            World world = null;
-            if (msb != 0L || lsb != 0L) {
-                UUID uuid = new UUID(msb, lsb);
-                world = Bukkit.getWorld(uuid);
-            }
-
-            return new Location(world, x, y, z);
+            return new Location(world(msb, lsb), x, y, z);
         }
     };
 
+    /**
+     * Stores a block location as its packed position and world uid in 3 longs instead of 5,
+     * see {@link #BLOCK_POSITION_SET} for the range of positions
+     */
+    public static final PersistentDataType<long[], Location> BLOCK_LOCATION = new PersistentType<>(
+            long[].class, Location.class,
+            (Location loc) -> {
+                World world = loc.getWorld();
+                long msb = world == null ? 0L : world.getUID().getMostSignificantBits();
+                long lsb = world == null ? 0L : world.getUID().getLeastSignificantBits();
+                return new long[] { pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()), msb, lsb };
+            },
+            arr -> {
+                if (arr.length < 3) {
+                    return new Location(null, 0, 0, 0);
+                }
+                return unpack(arr[0], world(arr[1], arr[2]));
+            }
+    );
+
+    /**
+     * Stores block locations grouped by world, each group is the world uid, the number of
+     * positions and the packed positions, so each location takes a single long
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static final PersistentDataType<long[], Set<Location>> BLOCK_LOCATION_SET = new PersistentType<long[], Set<Location>>(
+            long[].class, (Class) Set.class,
+            set -> {
+                Map<World, List<Location>> worlds = new LinkedHashMap<>();
+                for (Location loc : set) {
+                    worlds.computeIfAbsent(loc.getWorld(), k -> new ArrayList<>()).add(loc);
+                }
+                long[] arr = new long[worlds.size() * 3 + set.size()];
+                int i = 0;
+                for (Map.Entry<World, List<Location>> entry : worlds.entrySet()) {
+                    World world = entry.getKey();
+                    arr[i++] = world == null ? 0L : world.getUID().getMostSignificantBits();
+                    arr[i++] = world == null ? 0L : world.getUID().getLeastSignificantBits();
+                    arr[i++] = entry.getValue().size();
+                    for (Location loc : entry.getValue()) {
+                        arr[i++] = pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+                    }
+                }
+                return arr;
+            },
+            arr -> {
+                Set<Location> out = new HashSet<>();
+                int i = 0;
+                while (i + 2 < arr.length) {
+                    World world = world(arr[i], arr[i + 1]);
+                    int end = (int) Math.min(arr.length, i + 3 + arr[i + 2]);
+                    for (i += 3; i < end; i++) {
+                        out.add(unpack(arr[i], world));
+                    }
+                }
+                return out;
+            }
+    );
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
     public static final PersistentDataType<byte[], List<String>> STRING_LIST = new PersistentType<byte[], List<String>>(
             byte[].class, (Class) List.class,
             list -> {
-               try {
-                   YamlConfiguration yml = new YamlConfiguration();
-                   yml.set("l", list);
-                   return yml.saveToString().getBytes(StandardCharsets.UTF_8);
-               } catch (Exception e) {
-                   log.error("Failed to serialize String list.", e);
-                   return new byte[0];
-               }
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    out.writeInt(list.size());
+                    for (String string : list) {
+                        byte[] utf = string.getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(utf.length);
+                        out.write(utf);
+                    }
+                    return binary(bytes.toByteArray(), false);
+                } catch (Exception e) {
+                    log.error("Failed to serialize String list.", e);
+                    return new byte[0];
+                }
             },
-            arr -> {
+            cached(arr -> {
                 if (arr.length == 0) return Collections.emptyList();
+                if (arr[0] != BINARY) return legacyStringList(arr);
 
                 try {
-                    String s = new String(arr, StandardCharsets.UTF_8);
-                    YamlConfiguration yml = new YamlConfiguration();
-                    yml.loadFromString(s);
+                    DataInputStream in = new DataInputStream(new ByteArrayInputStream(body(arr)));
+                    int size = in.readInt();
+                    List<String> out = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        byte[] utf = new byte[in.readInt()];
+                        in.readFully(utf);
+                        out.add(new String(utf, StandardCharsets.UTF_8));
+                    }
+                    return out;
+                } catch (Exception e) {
+                    log.error("Failed to deserialize String list.", e);
+                    return Collections.emptyList();
+                }
+            }, ArrayList::new)
+    );
 
-                    return yml.getStringList("l");
+    /**
+     * Stores each uuid as its two halves
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static final PersistentDataType<long[], List<UUID>> UUID_LIST = new PersistentType<long[], List<UUID>>(
+            long[].class, (Class) List.class,
+            list -> {
+                long[] arr = new long[list.size() * 2];
+                int i = 0;
+                for (UUID uuid : list) {
+                    arr[i++] = uuid.getMostSignificantBits();
+                    arr[i++] = uuid.getLeastSignificantBits();
                 }
-                catch (InvalidConfigurationException ex) {
-                    log.error("Invalid YAML while deserializing String list.", ex);
-                    return Collections.emptyList();
+                return arr;
+            },
+            arr -> {
+                List<UUID> out = new ArrayList<>(arr.length / 2);
+                for (int i = 0; i + 1 < arr.length; i += 2) {
+                    out.add(new UUID(arr[i], arr[i + 1]));
                 }
-                catch (Exception e) {
-                    log.error("Failed to deserialize String list.", e);
-                    return Collections.emptyList();
+                return out;
+            }
+    );
+
+    /**
+     * Stores each position packed into a long the same way minecraft does,
+     * which covers x and z within 33 million blocks and y within 2048
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static final PersistentDataType<long[], Set<BlockPosition>> BLOCK_POSITION_SET = new PersistentType<long[], Set<BlockPosition>>(
+            long[].class, (Class) Set.class,
+            set -> {
+                long[] arr = new long[set.size()];
+                int i = 0;
+                for (BlockPosition position : set) {
+                    arr[i++] = pack(position);
+                }
+                return arr;
+            },
+            arr -> {
+                Set<BlockPosition> out = new HashSet<>((int) (arr.length / 0.75F) + 1);
+                for (long packed : arr) {
+                    out.add(unpack(packed));
                 }
+                return out;
             }
     );
 
+    /**
+     * The world of the last location read, most reads in a row are from the same world.
+     * Cleared when any world unloads so that no location is read into an unloaded world
+     */
+    private static volatile CachedWorld lastWorld;
+    private static boolean clearOnUnload;
+
+    private static long pack(BlockPosition position) {
+        return pack(position.blockX(), position.blockY(), position.blockZ());
+    }
+
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    @Nonnull
+    private static BlockPosition unpack(long packed) {
+        return Position.block((int) (packed >> 38), (int) (packed << 52 >> 52), (int) (packed << 26 >> 38));
+    }
+
+    @Nonnull
+    private static Location unpack(long packed, @Nullable World world) {
+        return new Location(world, (int) (packed >> 38), (int) (packed << 52 >> 52), (int) (packed << 26 >> 38));
+    }
+
+    /**
+     * Looks up a world by the halves of its uid, reusing the last world found
+     */
+    @Nullable
+    private static World world(long msb, long lsb) {
+        if (msb == 0L && lsb == 0L) {
+            return null;
+        }
+        CachedWorld cached = lastWorld;
+        if (cached != null && cached.msb == msb && cached.lsb == lsb) {
+            return cached.world;
+        }
+        World world = Bukkit.getWorld(new UUID(msb, lsb));
+        if (world != null) {
+            clearOnUnload();
+            lastWorld = new CachedWorld(msb, lsb, world);
+        }
+        return world;
+    }
+
+    private static synchronized void clearOnUnload() {
+        if (!clearOnUnload) {
+            Events.addHandler(WorldUnloadEvent.class, EventPriority.MONITOR, true, e -> lastWorld = null);
+            clearOnUnload = true;
+        }
+    }
+
+    private record CachedWorld(long msb, long lsb, World world) { }
+
+    @Nonnull
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static PersistentDataType<byte[], List<ItemStack>> itemStackList(boolean compress) {
+        return new PersistentType<byte[], List<ItemStack>>(
+                byte[].class, (Class) List.class,
+                list -> {
+                    try {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        DataOutputStream out = new DataOutputStream(bytes);
+                        out.writeInt(list.size());
+                        for (ItemStack item : list) {
+                            byte[] serialized = serializeItem(item);
+                            out.writeInt(serialized.length);
+                            out.write(serialized);
+                        }
+                        return binary(bytes.toByteArray(), compress);
+                    } catch (Exception e) {
+                        log.error("Failed to serialize ItemStack list.", e);
+                        return new byte[0];
+                    }
+                },
+                cached(arr -> {
+                    if (arr.length == 0) return new ArrayList<>();
+                    if (arr[0] != BINARY) return legacyItemStackList(arr);
+
+                    List<ItemStack> out = new ArrayList<>();
+                    try {
+                        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body(arr)));
+                        int size = in.readInt();
+                        for (int i = 0; i < size; i++) {
+                            byte[] serialized = new byte[in.readInt()];
+                            in.readFully(serialized);
+                            out.add(deserializeItem(serialized));
+                        }
+                    } catch (Exception e) {
+                        log.error("Failed to deserialize ItemStack list.", e);
+                    }
+                    return out;
+                }, PersistentType::copyItems)
+        );
+    }
+
+    /**
+     * Returns the hit, miss and eviction counts of the decoded value cache shared
+     * by {@link #ITEM_STACK}, the item stack lists and {@link #STRING_LIST}
+     */
+    @Nonnull
+    public static CacheStats decodeCacheStats() {
+        return DECODE_STATS;
+    }
+
+    /**
+     * Sets the number of decoded values each byte array type caches, clearing the caches.
+     * Use {@link #decodeCacheStats()} to find a size with few evictions, 0 disables caching
+     */
+    public static synchronized void decodeCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Decode cache size cannot be negative!");
+        }
+        decodeCacheSize = size;
+        for (SlotCache<byte[], ?> cache : DECODE_CACHES) {
+            cache.resize(size);
+        }
+    }
+
+    /**
+     * Caches decoded values by the content of their bytes, cached values never leave the cache
+     * so every read returns a copy that callers may modify
+     */
+    @Nonnull
+    private static synchronized <Z> Function<byte[], Z> cached(Function<byte[], Z> decoder, UnaryOperator<Z> copier) {
+        SlotCache<byte[], Z> cache = new SlotCache<>(decodeCacheSize, DECODE_STATS,
+                Arrays::hashCode, Arrays::equals, byte[]::clone);
+        DECODE_CACHES.add(cache);
+        return bytes -> copier.apply(cache.get(bytes, decoder));
+    }
+
+    @Nonnull
+    private static List<ItemStack> copyItems(List<ItemStack> items) {
+        List<ItemStack> copy = new ArrayList<>(items.size());
+        for (ItemStack item : items) {
+            copy.add(item.clone());
+        }
+        return copy;
+    }
+
+    /**
+     * Paper's item format, with air as no bytes since it can't be serialized
+     */
+    @Nonnull
+    private static byte[] serializeItem(ItemStack item) {
+        return item.getType().isAir() ? new byte[0] : item.serializeAsBytes();
+    }
+
+    @Nonnull
+    private static ItemStack deserializeItem(byte[] bytes) {
+        return bytes.length == 0 ? new ItemStack(Material.AIR) : ItemStack.deserializeBytes(bytes);
+    }
+
+    /**
+     * Prefixes the body with the binary marker and a flag byte, deflating it if asked to
+     */
+    @Nonnull
+    private static byte[] binary(byte[] body, boolean compress) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 2);
+        bytes.write(BINARY);
+        bytes.write(compress ? COMPRESSED : 0);
+        if (compress) {
+            try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+                out.write(body);
+            }
+        }
+        else {
+            bytes.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the body of a binary payload, inflating it if it was compressed
+     */
+    @Nonnull
+    private static byte[] body(byte[] arr) throws IOException {
+        if (arr.length < 2) {
+            throw new IOException("Binary payload is missing its flags");
+        }
+        if ((arr[1] & COMPRESSED) == 0) {
+            return Arrays.copyOfRange(arr, 2, arr.length);
+        }
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(arr, 2, arr.length - 2))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Reads an item written before the binary format, it is rewritten in the new format on its next write
+     */
+    @Nonnull
+    private static ItemStack legacyItemStack(byte[] arr) {
+        try {
+            String s = new String(arr, StandardCharsets.UTF_8);
+            YamlConfiguration yml = new YamlConfiguration();
+            yml.loadFromString(s);
+
+            Object raw = yml.get("i");
+            if (!(raw instanceof Map)) {
+                log.error("ItemStack YAML missing 'i' map or wrong type: {}", raw == null ? "null" : raw.getClass());
+                return CustomItemStack.create(Material.STONE, "&cERROR");
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> m = (Map<String, Object>) raw;
+
+            return ItemStack.deserialize(m);
+        } catch (InvalidConfigurationException ex) {
+            log.error("Invalid YAML while deserializing ItemStack.", ex);
+            return CustomItemStack.create(Material.STONE, "&cERROR");
+        } catch (Exception e) {
+            log.error("Failed to deserialize ItemStack.", e);
+            return CustomItemStack.create(Material.STONE, "&cERROR");
+        }
+    }
+
+    /**
+     * Reads an item list written before the binary format, it is rewritten in the new format on its next write
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private static List<ItemStack> legacyItemStackList(byte[] arr) {
+        List<ItemStack> out = new ArrayList<>();
+        try {
+            String s = new String(arr, StandardCharsets.UTF_8);
+            YamlConfiguration yml = new YamlConfiguration();
+            yml.loadFromString(s);
+
+            Object raw = yml.get("items");
+            if (!(raw instanceof List<?> rawList)) {
+                log.error("ItemStack list YAML missing 'items' list or wrong type: {}", raw == null ? "null" : raw.getClass());
+                return out;
+            }
+
+            for (Object o : rawList) {
+                if (o instanceof Map<?, ?> map) {
+                    Map<String, Object> cast = (Map<String, Object>) map;
+                    out.add(ItemStack.deserialize(cast));
+                } else {
+                    log.warn("Skipping non-map element in 'items': {}", o == null ? "null" : o.getClass());
+                }
+            }
+        } catch (InvalidConfigurationException ex) {
+            log.error("Invalid YAML while deserializing ItemStack list.", ex);
+        } catch (Exception e) {
+            log.error("Failed to deserialize ItemStack list.", e);
+        }
+        return out;
+    }
+
+    /**
+     * Reads a string list written before the binary format, it is rewritten in the new format on its next write
+     */
+    @Nonnull
+    private static List<String> legacyStringList(byte[] arr) {
+        try {
+            String s = new String(arr, StandardCharsets.UTF_8);
+            YamlConfiguration yml = new YamlConfiguration();
+            yml.loadFromString(s);
+
+            return yml.getStringList("l");
+        }
+        catch (InvalidConfigurationException ex) {
+            log.error("Invalid YAML while deserializing String list.", ex);
+            return Collections.emptyList();
+        }
+        catch (Exception e) {
+            log.error("Failed to deserialize String list.", e);
+            return Collections.emptyList();
+        }
+    }
+
     private final Class<T> primitive;
     private final Class<Z> complex;
     private final Function<Z, T> toPrimitive;
@@ -1,10 +1,24 @@
 package io.github.mooy1.infinitylib.common;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 import lombok.experimental.UtilityClass;
 
 import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
 
 import io.github.mooy1.infinitylib.core.AbstractAddon;
 
@@ -17,36 +31,193 @@ import io.github.mooy1.infinitylib.core.AbstractAddon;
 @ParametersAreNonnullByDefault
 public final class Scheduler {
 
-    public static void run(Runnable runnable) {
-        Bukkit.getScheduler().runTask(AbstractAddon.instance(), runnable);
+    private static final TaskBatch BATCH = new TaskBatch();
+    private static final BlockingQueue<Runnable> SHUTDOWN_QUEUE = new LinkedBlockingQueue<>();
+    private static volatile boolean shuttingDown;
+    private static final Executor MAIN_THREAD = runnable -> {
+        if (Bukkit.isPrimaryThread()) {
+            runnable.run();
+        }
+        else if (shuttingDown) {
+            // the disabled addon can't schedule tasks, shutdownVirtual runs these while it waits
+            SHUTDOWN_QUEUE.add(runnable);
+        }
+        else {
+            run(runnable);
+        }
+    };
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final long SHUTDOWN_POLL_MILLIS = 50;
+    @Nullable
+    private static ExecutorService virtualExecutor;
+
+    @Nonnull
+    public static BukkitTask run(Runnable runnable) {
+        return Bukkit.getScheduler().runTask(AbstractAddon.instance(), runnable);
+    }
+
+    @Nonnull
+    public static BukkitTask runAsync(Runnable runnable) {
+        return Bukkit.getScheduler().runTaskAsynchronously(AbstractAddon.instance(), runnable);
+    }
+
+    @Nonnull
+    public static BukkitTask run(int delayTicks, Runnable runnable) {
+        return Bukkit.getScheduler().runTaskLater(AbstractAddon.instance(), runnable, delayTicks);
+    }
+
+    @Nonnull
+    public static BukkitTask runAsync(int delayTicks, Runnable runnable) {
+        return Bukkit.getScheduler().runTaskLaterAsynchronously(AbstractAddon.instance(), runnable, delayTicks);
+    }
+
+    @Nonnull
+    public static BukkitTask repeat(int intervalTicks, Runnable runnable) {
+        return repeat(intervalTicks, 1, runnable);
+    }
+
+    @Nonnull
+    public static BukkitTask repeatAsync(int intervalTicks, Runnable runnable) {
+        return repeatAsync(intervalTicks, 1, runnable);
+    }
+
+    @Nonnull
+    public static BukkitTask repeat(int intervalTicks, int delayTicks, Runnable runnable) {
+        return Bukkit.getScheduler().runTaskTimer(AbstractAddon.instance(), runnable, delayTicks, Math.max(1, intervalTicks));
+    }
+
+    @Nonnull
+    public static BukkitTask repeatAsync(int intervalTicks, int delayTicks, Runnable runnable) {
+        return Bukkit.getScheduler().runTaskTimerAsynchronously(AbstractAddon.instance(), runnable, delayTicks, Math.max(1, intervalTicks));
+    }
+
+    /**
+     * Runs the runnable on the main thread in a single task together with the other batched runnables,
+     * which runs as many as fit in the batch budget each tick and leaves the rest for the next tick.
+     * Use this instead of {@link #run(Runnable)} for many small tasks, can be called from any thread
+     */
+    public static void batch(Runnable runnable) {
+        BATCH.add(runnable);
+    }
+
+    /**
+     * Sets the time the batch may run for each tick, at least one runnable runs each tick regardless
+     */
+    public static void batchBudget(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Batch budget cannot be negative!");
+        }
+        BATCH.budgetNanos = nanos;
+    }
+
+    /**
+     * Returns the number of batched runnables waiting to run
+     */
+    public static int batchSize() {
+        return BATCH.size();
     }
 
-    public static void runAsync(Runnable runnable) {
-        Bukkit.getScheduler().runTaskAsynchronously(AbstractAddon.instance(), runnable);
+    /**
+     * Runs the runnable on its own virtual thread, meant for blocking work like saving files,
+     * not for touching the world. Use {@link #mainThread()} to hop back with the result
+     */
+    @Nonnull
+    public static CompletableFuture<Void> runVirtual(Runnable runnable) {
+        return CompletableFuture.runAsync(runnable, virtualExecutor());
     }
 
-    public static void run(int delayTicks, Runnable runnable) {
-        Bukkit.getScheduler().runTaskLater(AbstractAddon.instance(), runnable, delayTicks);
+    /**
+     * Gets the value on its own virtual thread, see {@link #runVirtual(Runnable)}
+     */
+    @Nonnull
+    public static <T> CompletableFuture<T> supplyVirtual(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, virtualExecutor());
     }
 
-    public static void runAsync(int delayTicks, Runnable runnable) {
-        Bukkit.getScheduler().runTaskLaterAsynchronously(AbstractAddon.instance(), runnable, delayTicks);
+    /**
+     * Gets the value on its own virtual thread and then passes it to the callback on the main thread,
+     * logging the error if either fails
+     */
+    @Nonnull
+    public static <T> CompletableFuture<Void> supplyVirtual(Supplier<T> supplier, Consumer<T> callback) {
+        return supplyVirtual(supplier).thenAcceptAsync(callback, MAIN_THREAD).whenComplete((result, e) -> {
+            if (e != null) {
+                AbstractAddon.log(Level.SEVERE, "Virtual thread task failed", e);
+            }
+        });
     }
 
-    public static void repeat(int intervalTicks, Runnable runnable) {
-        repeat(intervalTicks, 1, runnable);
+    /**
+     * An executor which runs on the main thread, directly when already on it,
+     * for continuing futures with methods like {@link CompletableFuture#thenAcceptAsync(Consumer, Executor)}.
+     * While {@link #shutdownVirtual()} waits they are run by it on the main thread instead of by a task
+     */
+    @Nonnull
+    public static Executor mainThread() {
+        return MAIN_THREAD;
     }
 
-    public static void repeatAsync(int intervalTicks, Runnable runnable) {
-        repeatAsync(intervalTicks, 1, runnable);
+    @Nonnull
+    private static synchronized ExecutorService virtualExecutor() {
+        if (virtualExecutor == null) {
+            virtualExecutor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(AbstractAddon.instance().getName() + "-virtual-", 0).factory());
+        }
+        return virtualExecutor;
     }
 
-    public static void repeat(int intervalTicks, int delayTicks, Runnable runnable) {
-        Bukkit.getScheduler().runTaskTimer(AbstractAddon.instance(), runnable, delayTicks, Math.max(1, intervalTicks));
+    /**
+     * Stops accepting virtual thread work and waits for running work to finish, interrupting it if it
+     * takes too long. Continuations on {@link #mainThread()} are run on the calling main thread meanwhile,
+     * but main thread tasks scheduled before the addon started disabling are discarded by bukkit.
+     * Called by {@link AbstractAddon} when disabling
+     */
+    public static synchronized void shutdownVirtual() {
+        if (virtualExecutor == null) {
+            return;
+        }
+        ExecutorService executor = virtualExecutor;
+        virtualExecutor = null;
+        // set first so that no continuation tries to schedule a task once shutdown started
+        shuttingDown = true;
+        executor.shutdown();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+            while (!executor.isTerminated()) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    AbstractAddon.log(Level.WARNING, "Virtual thread tasks did not finish in time, interrupting them");
+                    executor.shutdownNow();
+                    break;
+                }
+                long wait = Math.min(left, TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_POLL_MILLIS));
+                Runnable continuation = SHUTDOWN_QUEUE.poll(wait, TimeUnit.NANOSECONDS);
+                if (continuation != null) {
+                    runContinuation(continuation);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            shuttingDown = false;
+            // continuations queued by the last tasks to finish
+            Runnable continuation;
+            while ((continuation = SHUTDOWN_QUEUE.poll()) != null) {
+                runContinuation(continuation);
+            }
+        }
     }
 
-    public static void repeatAsync(int intervalTicks, int delayTicks, Runnable runnable) {
-        Bukkit.getScheduler().runTaskTimerAsynchronously(AbstractAddon.instance(), runnable, delayTicks, Math.max(1, intervalTicks));
+    private static void runContinuation(Runnable continuation) {
+        try {
+            continuation.run();
+        }
+        catch (RuntimeException e) {
+            AbstractAddon.log(Level.SEVERE, "Main thread continuation failed", e);
+        }
     }
 
 }
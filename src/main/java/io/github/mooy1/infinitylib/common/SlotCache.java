@@ -0,0 +1,91 @@
+package io.github.mooy1.infinitylib.common;
+
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * A bounded cache where each key maps to a single slot by its hash, so a lookup is one array read
+ * and a newer key simply replaces an older one. How keys are hashed, matched and kept is given
+ * to the constructor, {@link #identity(int)} caches values of immutable stacks by identity.
+ */
+@ParametersAreNonnullByDefault
+final class SlotCache<K, V> {
+
+    @Nullable
+    private volatile Entry<K, V>[] entries;
+    final CacheStats stats;
+    private final ToIntFunction<K> hasher;
+    private final BiPredicate<K, K> matcher;
+    private final UnaryOperator<K> keeper;
+
+    /**
+     * @param keeper copies a key before it is stored, for keys the caller may still modify
+     */
+    SlotCache(int size, CacheStats stats, ToIntFunction<K> hasher, BiPredicate<K, K> matcher, UnaryOperator<K> keeper) {
+        this.stats = stats;
+        this.hasher = hasher;
+        this.matcher = matcher;
+        this.keeper = keeper;
+        resize(size);
+    }
+
+    @Nonnull
+    static <V> SlotCache<ItemStack, V> identity(int size) {
+        return new SlotCache<>(size, new CacheStats(), System::identityHashCode, (a, b) -> a == b, UnaryOperator.identity());
+    }
+
+    /**
+     * Replaces the cache with an empty one of the given size, 0 disables caching
+     */
+    @SuppressWarnings("unchecked")
+    void resize(int size) {
+        entries = size == 0 ? null : new Entry[Integer.highestOneBit(Math.max(2, size - 1)) << 1];
+    }
+
+    V get(K key, Function<K, V> loader) {
+        Entry<K, V>[] entries = this.entries;
+        if (entries == null) {
+            return loader.apply(key);
+        }
+        int hash = hasher.applyAsInt(key);
+        int slot = (hash ^ hash >>> 16) & (entries.length - 1);
+        Entry<K, V> entry = entries[slot];
+        if (entry != null && entry.hash == hash && matcher.test(entry.key, key)) {
+            stats.hit();
+            return entry.value;
+        }
+        stats.miss();
+        V value = loader.apply(key);
+        if (entry != null) {
+            stats.evict();
+        }
+        entries[slot] = new Entry<>(hash, keeper.apply(key), value);
+        return value;
+    }
+
+    /**
+     * Entries are immutable so that a racing reader always sees a matching key and value
+     */
+    private static final class Entry<K, V> {
+
+        private final int hash;
+        private final K key;
+        private final V value;
+
+        private Entry(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -14,24 +14,32 @@ import org.bukkit.persistence.PersistentDataType;
 
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
 import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import io.github.thebusybiscuit.slimefun4.libraries.dough.items.ItemStackSnapshot;
 
 import net.kyori.adventure.text.Component;
 
 import java.awt.*;
-import java.util.Objects;
 
 @UtilityClass
 @ParametersAreNonnullByDefault
 public final class StackUtils {
 
     private static final NamespacedKey ID_KEY = Slimefun.getItemDataService().getKey();
+    private static final SlotCache<ItemStack, ItemFingerprint> SNAPSHOTS = SlotCache.identity(4096);
 
+    /**
+     * Returns the id of the slimefun item this item is, or null if it isn't one.
+     * Items without meta are resolved without touching meta at all, and immutable
+     * {@link ItemStackSnapshot}s are cached so their meta is only read once.
+     */
     @Nullable
     public static String getId(@Nullable ItemStack item) {
         if (item == null || item.getType().isAir()) return null;
 
-        SlimefunItem sf = SlimefunItem.getByItem(item);
-        return (sf != null) ? sf.getId() : null;
+        if (item instanceof ItemStackSnapshot) {
+            return validateId(SNAPSHOTS.get(item, ItemFingerprint::of).id);
+        }
+        return validateId(readId(item));
     }
 
     @Nullable
@@ -43,8 +51,49 @@ public final class StackUtils {
     public static String getIdOrType(@Nullable ItemStack item) {
         if (item == null || item.getType().isAir()) return "AIR";
 
-        SlimefunItem sf = SlimefunItem.getByItem(item);
-        return (sf != null) ? sf.getId() : item.getType().name();
+        String id = getId(item);
+        return (id != null) ? id : item.getType().name();
+    }
+
+    /**
+     * Returns the hit and miss counts of the snapshot cache
+     * used by {@link #getId(ItemStack)} and {@link #isSimilar(ItemStack, ItemStack)}
+     */
+    @Nonnull
+    public static CacheStats snapshotCacheStats() {
+        return SNAPSHOTS.stats;
+    }
+
+    /**
+     * Reads the raw slimefun id of a mutable stack through its data container view instead of copying its meta
+     */
+    @Nullable
+    private static String readId(ItemStack item) {
+        if (!item.hasItemMeta()) {
+            return null;
+        }
+        return item.getPersistentDataContainer().get(ID_KEY, PersistentDataType.STRING);
+    }
+
+    /**
+     * Same result as {@link SlimefunItem#getByItem(ItemStack)}, only ids of registered items are returned
+     */
+    @Nullable
+    private static String validateId(@Nullable String id) {
+        if (id == null) return null;
+
+        SlimefunItem sf = SlimefunItem.getById(id);
+        return (sf != null) ? sf.getId() : null;
+    }
+
+    @Nullable
+    private static String rawId(ItemStack item) {
+        return item instanceof ItemStackSnapshot ? SNAPSHOTS.get(item, ItemFingerprint::of).id : readId(item);
+    }
+
+    @Nonnull
+    private static ItemFingerprint fingerprint(ItemStack item) {
+        return item instanceof ItemStackSnapshot ? SNAPSHOTS.get(item, ItemFingerprint::of) : ItemFingerprint.of(item);
     }
 
     @Nullable
@@ -59,11 +108,28 @@ public final class StackUtils {
         return item == null ? new ItemStack(Material.valueOf(idOrType)) : item.getItem().clone();
     }
 
+    /**
+     * Returns a key which is equal for two items exactly when {@link #isSimilar(ItemStack, ItemStack)}
+     * is true for them, so that items can be looked up by similarity in a map
+     */
+    @Nonnull
+    public static Object similarityKey(@Nullable ItemStack item) {
+        if (item == null || item.getType().isAir()) {
+            return Material.AIR;
+        } else if (!item.hasItemMeta()) {
+            return item.getType();
+        }
+        String id = rawId(item);
+        return id != null ? id : new NameKey(item.getType(), fingerprint(item).name);
+    }
+
     /**
      * Returns true when both items:
      *  - Are null or air
      *  - Have the same slimefun id
      *  - Have the same type and display name or lack thereof
+     * Ids are read without copying meta, display names are only read when neither item has an id,
+     * and both are read only once for each {@link ItemStackSnapshot}
      */
     public static boolean isSimilar(@Nullable ItemStack first, @Nullable ItemStack second) {
         if (first == null || first.getType().isAir()) {
@@ -72,21 +138,11 @@ public final class StackUtils {
             return false;
         } else if (first.hasItemMeta()) {
             if (second.hasItemMeta()) {
-                ItemMeta firstMeta = first.getItemMeta();
-                ItemMeta secondMeta = second.getItemMeta();
-                String firstId = getId(firstMeta);
+                String firstId = rawId(first);
                 if (firstId == null) {
-                    if (getId(secondMeta) == null) {
+                    if (rawId(second) == null) {
                         if (first.getType() == second.getType()) {
-                            boolean aHas = firstMeta.hasDisplayName();
-                            boolean bHas = secondMeta.hasDisplayName();
-
-                            if (aHas != bHas) return false;
-                            if (!aHas) return true;
-
-                            Component a = firstMeta.displayName();
-                            Component b = secondMeta.displayName();
-                            return Objects.equals(a, b);
+                            return fingerprint(first).sameName(fingerprint(second));
                         } else {
                             return false;
                         }
@@ -94,7 +150,7 @@ public final class StackUtils {
                         return false;
                     }
                 } else {
-                    return firstId.equals(getId(secondMeta));
+                    return firstId.equals(rawId(second));
                 }
             } else {
                 return false;
@@ -106,4 +162,9 @@ public final class StackUtils {
         }
     }
 
+    /**
+     * The similarity key of an item with meta but no slimefun id
+     */
+    private record NameKey(Material type, @Nullable Component name) { }
+
 }
@@ -0,0 +1,48 @@
+package io.github.mooy1.infinitylib.common;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import io.github.mooy1.infinitylib.core.AbstractAddon;
+
+/**
+ * Runnables collected from any thread and run on the main thread by a single repeating task,
+ * which runs until its budget for the tick is used up and cancels itself once the queue is empty
+ */
+@ParametersAreNonnullByDefault
+final class TaskBatch {
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final DrainTask task = new DrainTask(this::drain, queue::isEmpty);
+    volatile long budgetNanos = 2_000_000;
+
+    void add(Runnable runnable) {
+        queue.add(runnable);
+        task.start();
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    private void drain() {
+        long start = System.nanoTime();
+        long budget = budgetNanos;
+        do {
+            Runnable runnable = queue.poll();
+            if (runnable == null) {
+                return;
+            }
+            try {
+                runnable.run();
+            }
+            catch (RuntimeException e) {
+                AbstractAddon.log(Level.SEVERE, "Batched task failed", e);
+            }
+        } while (System.nanoTime() - start < budget);
+    }
+
+}
@@ -0,0 +1,126 @@
+package io.github.mooy1.infinitylib.common;
+
+import java.util.UUID;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import io.github.mooy1.infinitylib.core.AbstractAddon;
+
+/**
+ * Cool downs measured in slimefun ticks using {@link AbstractAddon#slimefunTickCount()}, keyed by uuid or block.
+ * Checking doesn't read the clock, and the cool down stays in step with machines when the server lags.
+ * Thread safe, expired entries are dropped when checked and by {@link #sweep()}.
+ */
+@ParametersAreNonnullByDefault
+public final class TickCoolDowns {
+
+    private final CoolDownTable uuids = new CoolDownTable();
+    private final CoolDownTable blocks = new CoolDownTable();
+    private final int cd;
+
+    /**
+     * @param cd the cool down in slimefun ticks
+     */
+    public TickCoolDowns(int cd) {
+        if (cd < 1) {
+            throw new IllegalArgumentException("Cool down must be at least 1 tick!");
+        }
+        this.cd = cd;
+    }
+
+    public boolean check(UUID uuid) {
+        return check(uuids, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public void reset(UUID uuid) {
+        uuids.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), AbstractAddon.slimefunTickCount());
+    }
+
+    public boolean checkAndReset(UUID uuid) {
+        return uuids.putIfExpired(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(),
+                AbstractAddon.slimefunTickCount(), cd);
+    }
+
+    public boolean check(Block b) {
+        return check(blocks, position(b.getX(), b.getY(), b.getZ()), world(b.getWorld()));
+    }
+
+    public void reset(Block b) {
+        blocks.put(position(b.getX(), b.getY(), b.getZ()), world(b.getWorld()), AbstractAddon.slimefunTickCount());
+    }
+
+    public boolean checkAndReset(Block b) {
+        return blocks.putIfExpired(position(b.getX(), b.getY(), b.getZ()), world(b.getWorld()),
+                AbstractAddon.slimefunTickCount(), cd);
+    }
+
+    public boolean check(Location l) {
+        return check(blocks, position(l.getBlockX(), l.getBlockY(), l.getBlockZ()), world(l.getWorld()));
+    }
+
+    public void reset(Location l) {
+        blocks.put(position(l.getBlockX(), l.getBlockY(), l.getBlockZ()), world(l.getWorld()),
+                AbstractAddon.slimefunTickCount());
+    }
+
+    public boolean checkAndReset(Location l) {
+        return blocks.putIfExpired(position(l.getBlockX(), l.getBlockY(), l.getBlockZ()), world(l.getWorld()),
+                AbstractAddon.slimefunTickCount(), cd);
+    }
+
+    /**
+     * Removes all expired entries
+     */
+    public void sweep() {
+        int now = AbstractAddon.slimefunTickCount();
+        uuids.removeExpired(now, cd);
+        blocks.removeExpired(now, cd);
+    }
+
+    /**
+     * Sweeps asynchronously every interval for as long as the addon is enabled
+     */
+    @Nonnull
+    public TickCoolDowns sweepEvery(int intervalTicks) {
+        Scheduler.repeatAsync(intervalTicks, this::sweep);
+        return this;
+    }
+
+    public void clear() {
+        uuids.clear();
+        blocks.clear();
+    }
+
+    private boolean check(CoolDownTable table, long first, long second) {
+        long time = table.get(first, second);
+        if (time == CoolDownTable.EMPTY) {
+            return true;
+        }
+        if (AbstractAddon.slimefunTickCount() - time >= cd) {
+            table.remove(first, second, time);
+            return true;
+        }
+        return false;
+    }
+
+    private static long position(int x, int y, int z) {
+        return PersistentType.pack(x, y, z);
+    }
+
+    /**
+     * Blocks are keyed by their packed position and their world's uid folded into one long
+     */
+    private static long world(World world) {
+        if (world == null) {
+            return 0L;
+        }
+        UUID uid = world.getUID();
+        return uid.getMostSignificantBits() ^ uid.getLeastSignificantBits();
+    }
+
+}
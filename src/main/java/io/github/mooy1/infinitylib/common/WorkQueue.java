@@ -0,0 +1,226 @@
+package io.github.mooy1.infinitylib.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import org.bukkit.Bukkit;
+
+import io.github.mooy1.infinitylib.core.AbstractAddon;
+
+/**
+ * A queue of work processed on the main thread within a time budget each tick, for large jobs like
+ * migrating thousands of inventories. The budget shrinks when the server is behind so that the queue
+ * never pushes a tick over 50ms by itself, but at least one item is processed each tick. Items may be
+ * submitted from any thread, the queue completes once it is closed and everything was processed.
+ */
+@ParametersAreNonnullByDefault
+public final class WorkQueue<T> {
+
+    private static final double TICK_MILLIS = 50;
+    private static final double MIN_BUDGET_FRACTION = 0.1;
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final Consumer<T> worker;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final List<Milestone> milestones = new ArrayList<>();
+    private volatile double budgetMillis = 5;
+    private volatile double itemsPerMilli;
+    private final DrainTask task = new DrainTask(this::tick, queue::isEmpty);
+    private volatile boolean closed;
+
+    public WorkQueue(Consumer<T> worker) {
+        this.worker = worker;
+    }
+
+    /**
+     * Sets the most time the queue may take each tick
+     */
+    @Nonnull
+    public WorkQueue<T> budgetMillis(double budgetMillis) {
+        if (budgetMillis <= 0) {
+            throw new IllegalArgumentException("Budget must be positive!");
+        }
+        this.budgetMillis = budgetMillis;
+        return this;
+    }
+
+    @Nonnull
+    public WorkQueue<T> submit(T item) {
+        if (closed) {
+            throw new IllegalStateException("Cannot submit to a closed work queue!");
+        }
+        submitted.incrementAndGet();
+        queue.add(item);
+        schedule();
+        return this;
+    }
+
+    @Nonnull
+    public WorkQueue<T> submitAll(Collection<? extends T> items) {
+        if (closed) {
+            throw new IllegalStateException("Cannot submit to a closed work queue!");
+        }
+        submitted.addAndGet(items.size());
+        queue.addAll(items);
+        schedule();
+        return this;
+    }
+
+    /**
+     * Stops accepting items, the queue completes once the remaining items are processed
+     */
+    @Nonnull
+    public WorkQueue<T> close() {
+        closed = true;
+        schedule();
+        return this;
+    }
+
+    /**
+     * Drops all remaining items and cancels the completion and any pending progress futures
+     */
+    public synchronized void cancel() {
+        closed = true;
+        queue.clear();
+        task.stop();
+        completion.cancel(false);
+        for (Milestone milestone : milestones) {
+            milestone.future.cancel(false);
+        }
+        milestones.clear();
+    }
+
+    /**
+     * Completes once the queue is closed and every item was processed
+     */
+    @Nonnull
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    /**
+     * Completes once the given fraction of the items submitted so far was processed,
+     * items submitted later don't delay it
+     */
+    @Nonnull
+    public synchronized CompletableFuture<Void> progress(double fraction) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        long target = (long) Math.ceil(fraction * submitted.get());
+        if (processed.get() >= target) {
+            future.complete(null);
+        }
+        else {
+            milestones.add(new Milestone(target, future));
+        }
+        return future;
+    }
+
+    /**
+     * Returns the fraction of submitted items processed, 1 when nothing was submitted
+     */
+    public double progress() {
+        long total = submitted.get();
+        return total == 0 ? 1 : (double) processed.get() / total;
+    }
+
+    public long submitted() {
+        return submitted.get();
+    }
+
+    public long processed() {
+        return processed.get();
+    }
+
+    public long remaining() {
+        return submitted.get() - processed.get();
+    }
+
+    /**
+     * Returns the measured number of items processed per millisecond, 0 until the first tick
+     */
+    public double throughput() {
+        return itemsPerMilli;
+    }
+
+    /**
+     * Estimates the ticks needed to process the remaining items at the current throughput and budget
+     */
+    public long estimatedTicks() {
+        double perTick = itemsPerMilli * budgetMillis;
+        return perTick == 0 ? -1 : (long) Math.ceil(remaining() / perTick);
+    }
+
+    private void schedule() {
+        if (!completion.isDone()) {
+            task.start();
+        }
+    }
+
+    /**
+     * Uses the time left in the tick by the rest of the server, within the configured budget
+     */
+    private long budgetNanos() {
+        double budget = budgetMillis;
+        double headroom = TICK_MILLIS - Bukkit.getAverageTickTime();
+        double millis = Math.max(budget * MIN_BUDGET_FRACTION, Math.min(budget, headroom));
+        return (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private void tick() {
+        long budget = budgetNanos();
+        long start = System.nanoTime();
+        long elapsed = 0;
+        int count = 0;
+        T item;
+        while (elapsed < budget && (item = queue.poll()) != null) {
+            try {
+                worker.accept(item);
+            }
+            catch (RuntimeException e) {
+                AbstractAddon.log(Level.SEVERE, "Work queue item failed", e);
+            }
+            count++;
+            elapsed = System.nanoTime() - start;
+        }
+
+        if (count != 0) {
+            processed.addAndGet(count);
+            double rate = count / Math.max(1e-3, elapsed / 1e6);
+            itemsPerMilli = itemsPerMilli == 0 ? rate : itemsPerMilli * 0.8 + rate * 0.2;
+        }
+
+        synchronized (this) {
+            long done = processed.get();
+            milestones.removeIf(milestone -> {
+                if (done >= milestone.target) {
+                    milestone.future.complete(null);
+                    return true;
+                }
+                return false;
+            });
+
+            if (closed && queue.isEmpty()) {
+                completion.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Completes its future once this many items were processed
+     */
+    private record Milestone(long target, CompletableFuture<Void> future) { }
+
+}
@@ -203,6 +203,8 @@ public abstract class AbstractAddon extends JavaPlugin implements SlimefunAddon
             handle(e);
         }
         finally {
+            // let work saved from disable() finish before the addon is gone
+            Scheduler.shutdownVirtual();
             disabling = false;
             instance = null;
             slimefunTickCount = 0;
@@ -307,6 +309,10 @@ public abstract class AbstractAddon extends JavaPlugin implements SlimefunAddon
         }
     }
 
+    public static void log(Level level, String message, Throwable throwable) {
+        instance().getLogger().log(level, message, throwable);
+    }
+
     /**
      * Returns the total number of Slimefun ticks that have occurred
      */
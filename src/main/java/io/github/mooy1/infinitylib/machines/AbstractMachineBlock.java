@@ -1,19 +1,36 @@
 package io.github.mooy1.infinitylib.machines;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 import lombok.Setter;
 
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
 import org.bukkit.inventory.ItemStack;
 
+import io.github.mooy1.infinitylib.common.Events;
+import io.github.mooy1.infinitylib.core.AbstractAddon;
 import io.github.thebusybiscuit.slimefun4.api.SlimefunAddon;
 import io.github.thebusybiscuit.slimefun4.api.items.ItemGroup;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItemStack;
 import io.github.thebusybiscuit.slimefun4.api.recipes.RecipeType;
 import io.github.thebusybiscuit.slimefun4.core.attributes.EnergyNetComponent;
 import io.github.thebusybiscuit.slimefun4.core.networks.energy.EnergyNetComponentType;
+import me.mrCookieSlime.CSCoreLibPlugin.Configuration.Config;
+import me.mrCookieSlime.Slimefun.api.BlockStorage;
 import me.mrCookieSlime.Slimefun.api.inventory.BlockMenu;
 
 @Setter
@@ -22,6 +39,13 @@ public abstract class AbstractMachineBlock extends TickingMenuBlock implements E
 
     protected int energyPerTick = -1;
     protected int energyCapacity = -1;
+    /**
+     * Keeps each block's charge in memory and writes it to block storage every this many slimefun ticks,
+     * and when its chunk unloads, its world saves or the addon disables. 0 reads and writes storage directly
+     */
+    protected int chargeWriteTicks;
+    private final ChunkIndexedMap<MachineCharge> charges = new ChunkIndexedMap<>();
+    private final Map<BlockMenu, ItemStack> statuses = Collections.synchronizedMap(new WeakHashMap<>());
 
     public AbstractMachineBlock(ItemGroup category, SlimefunItemStack item, RecipeType recipeType, ItemStack[] recipe) {
         super(category, item, recipeType, recipe);
@@ -29,20 +53,165 @@ public abstract class AbstractMachineBlock extends TickingMenuBlock implements E
 
     @Override
     protected void tick(Block b, BlockMenu menu) {
-        if (getCharge(menu.getLocation()) < energyPerTick) {
-            if (menu.hasViewer()) {
-                menu.replaceExistingItem(getStatusSlot(), NO_ENERGY_ITEM);
+        Location l = menu.getLocation();
+        if (chargeWriteTicks == 0) {
+            if (getCharge(l) < energyPerTick) {
+                updateStatus(menu, NO_ENERGY_ITEM);
+            }
+            else if (process(b, menu)) {
+                removeCharge(l, energyPerTick);
             }
+            return;
+        }
+
+        MachineCharge charge = charge(l);
+        if (charge.get() < energyPerTick) {
+            updateStatus(menu, NO_ENERGY_ITEM);
         }
         else if (process(b, menu)) {
-            removeCharge(menu.getLocation(), energyPerTick);
+            charge.remove(energyPerTick);
+        }
+        // offset by position so that blocks placed together don't all write on the same tick
+        if ((AbstractAddon.slimefunTickCount() + phase(l, chargeWriteTicks)) % chargeWriteTicks == 0
+                && !writeCharge(l, charge)) {
+            charges.remove(l);
         }
     }
 
     protected abstract boolean process(Block b, BlockMenu menu);
 
+    /**
+     * Spreads blocks over the ticks of a period by their position
+     */
+    static int phase(Location l, int period) {
+        int hash = (l.getBlockX() * 31 + l.getBlockZ()) * 31 + l.getBlockY();
+        return Math.floorMod(hash, period);
+    }
+
     protected abstract int getStatusSlot();
 
+    /**
+     * Shows the status item in the status slot if the menu has a viewer. When {@link #rememberStatus()}
+     * is true it is skipped if the menu is already showing it, so that an unchanged status doesn't send
+     * an inventory update every tick
+     */
+    protected final void updateStatus(BlockMenu menu, ItemStack status) {
+        if (menu.hasViewer() && (!rememberStatus() || statuses.put(menu, status) != status)) {
+            menu.replaceExistingItem(getStatusSlot(), status);
+        }
+    }
+
+    /**
+     * Returns the status item last shown by {@link #updateStatus(BlockMenu, ItemStack)},
+     * always null unless {@link #rememberStatus()} is true
+     */
+    @Nullable
+    protected final ItemStack shownStatus(BlockMenu menu) {
+        return statuses.get(menu);
+    }
+
+    /**
+     * Whether the last status shown in each menu is remembered to skip redrawing it, only correct
+     * if every write to the status slot goes through {@link #updateStatus(BlockMenu, ItemStack)}
+     */
+    protected boolean rememberStatus() {
+        return false;
+    }
+
+    @Override
+    public int getCharge(@Nonnull Location l) {
+        return chargeWriteTicks == 0 ? EnergyNetComponent.super.getCharge(l) : charge(l).get();
+    }
+
+    @Override
+    public int getCharge(@Nonnull Location l, @Nonnull Config data) {
+        return chargeWriteTicks == 0 ? EnergyNetComponent.super.getCharge(l, data) : charge(l).get();
+    }
+
+    @Override
+    public void setCharge(@Nonnull Location l, int charge) {
+        if (chargeWriteTicks == 0) {
+            EnergyNetComponent.super.setCharge(l, charge);
+        }
+        else if (charge < 0) {
+            throw new IllegalArgumentException("You can only set a charge of zero or more!");
+        }
+        else {
+            charge(l).set(Math.min(charge, energyCapacity));
+        }
+    }
+
+    @Override
+    public void addCharge(@Nonnull Location l, int charge) {
+        if (chargeWriteTicks == 0) {
+            EnergyNetComponent.super.addCharge(l, charge);
+        }
+        else if (charge > 0) {
+            charge(l).add(charge, energyCapacity);
+        }
+    }
+
+    @Override
+    public void removeCharge(@Nonnull Location l, int charge) {
+        if (chargeWriteTicks == 0) {
+            EnergyNetComponent.super.removeCharge(l, charge);
+        }
+        else if (charge > 0) {
+            charge(l).remove(charge);
+        }
+    }
+
+    /**
+     * Reads a block's charge from block storage the first time it's needed
+     */
+    @Nonnull
+    private MachineCharge charge(Location l) {
+        return charges.computeIfAbsent(l, k -> {
+            String charge = BlockStorage.getLocationInfo(k, "energy-charge");
+            return new MachineCharge(charge == null ? 0 : Integer.parseInt(charge));
+        });
+    }
+
+    /**
+     * Writes a changed charge to block storage, returns false without writing if the block
+     * is no longer this machine, so that no entry is created for a block that is gone
+     */
+    private boolean writeCharge(Location l, MachineCharge charge) {
+        if (BlockStorage.check(l) != this) {
+            return false;
+        }
+        int changed = charge.takeChanged();
+        if (changed != -1) {
+            BlockStorage.addBlockInfo(l, "energy-charge", String.valueOf(changed), false);
+        }
+        return true;
+    }
+
+    private void writeCharges(World world, int chunkX, int chunkZ) {
+        charges.removeChunk(world, chunkX, chunkZ, this::writeCharge);
+    }
+
+    private void writeCharges(World world) {
+        charges.forEach((l, charge) -> {
+            if (l.getWorld() == world && !writeCharge(l, charge)) {
+                charges.remove(l);
+            }
+        });
+    }
+
+    @Override
+    protected void onBreak(BlockBreakEvent e, BlockMenu menu) {
+        super.onBreak(e, menu);
+        charges.remove(menu.getLocation());
+    }
+
+    @Override
+    protected void onPlace(BlockPlaceEvent e, Block b) {
+        super.onPlace(e, b);
+        // a block removed without being broken may have left its charge behind
+        charges.remove(b.getLocation());
+    }
+
     @Override
     public final int getCapacity() {
         return energyCapacity;
@@ -62,6 +231,19 @@ public abstract class AbstractMachineBlock extends TickingMenuBlock implements E
         if (energyCapacity == -1) {
             energyCapacity = energyPerTick * 2;
         }
+        if (chargeWriteTicks < 0) {
+            throw new IllegalStateException("Charge Write Ticks must be at least 0!");
+        }
+        if (chargeWriteTicks != 0) {
+            Events.addHandler(ChunkUnloadEvent.class, EventPriority.MONITOR, true,
+                    e -> writeCharges(e.getWorld(), e.getChunk().getX(), e.getChunk().getZ()));
+            Events.addHandler(WorldSaveEvent.class, EventPriority.MONITOR, true, e -> writeCharges(e.getWorld()));
+            Events.addHandler(PluginDisableEvent.class, EventPriority.MONITOR, true, e -> {
+                if (e.getPlugin() == AbstractAddon.instance()) {
+                    charges.forEach(this::writeCharge);
+                }
+            });
+        }
         super.register(addon);
     }
 
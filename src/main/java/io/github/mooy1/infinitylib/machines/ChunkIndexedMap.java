@@ -0,0 +1,92 @@
+package io.github.mooy1.infinitylib.machines;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * Per block values that also index their locations by chunk, so that dropping the values
+ * of an unloaded chunk only touches that chunk's entries instead of scanning all of them
+ */
+@ParametersAreNonnullByDefault
+final class ChunkIndexedMap<V> {
+
+    private final Map<Location, V> values = new ConcurrentHashMap<>();
+    private final Map<ChunkKey, Set<Location>> chunks = new ConcurrentHashMap<>();
+
+    @Nullable
+    V get(Location l) {
+        return values.get(l);
+    }
+
+    @Nonnull
+    V computeIfAbsent(Location l, Function<Location, V> function) {
+        V value = values.get(l);
+        if (value != null) {
+            return value;
+        }
+        return values.computeIfAbsent(l, k -> {
+            // added inside the compute so that a remove emptying the set can't drop it in between
+            chunks.compute(ChunkKey.of(k), (c, locations) -> {
+                Set<Location> set = locations == null ? ConcurrentHashMap.newKeySet() : locations;
+                set.add(k);
+                return set;
+            });
+            return function.apply(k);
+        });
+    }
+
+    @Nullable
+    V remove(Location l) {
+        V value = values.remove(l);
+        if (value != null) {
+            chunks.computeIfPresent(ChunkKey.of(l), (k, locations) -> {
+                locations.remove(l);
+                return locations.isEmpty() ? null : locations;
+            });
+        }
+        return value;
+    }
+
+    void removeChunk(World world, int x, int z) {
+        removeChunk(world, x, z, (l, value) -> { });
+    }
+
+    /**
+     * Removes the values of a chunk, passing each one to the consumer
+     */
+    void removeChunk(World world, int x, int z, BiConsumer<Location, V> consumer) {
+        Set<Location> locations = chunks.remove(new ChunkKey(world, x, z));
+        if (locations != null) {
+            for (Location l : locations) {
+                V value = values.remove(l);
+                if (value != null) {
+                    consumer.accept(l, value);
+                }
+            }
+        }
+    }
+
+    void forEach(BiConsumer<Location, V> consumer) {
+        values.forEach(consumer);
+    }
+
+    private record ChunkKey(@Nullable World world, int x, int z) {
+
+        @Nonnull
+        static ChunkKey of(Location l) {
+            return new ChunkKey(l.getWorld(), l.getBlockX() >> 4, l.getBlockZ() >> 4);
+        }
+
+    }
+
+}
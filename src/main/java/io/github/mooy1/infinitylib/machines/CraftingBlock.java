@@ -1,8 +1,5 @@
 package io.github.mooy1.infinitylib.machines;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -24,7 +21,6 @@ import org.bukkit.inventory.ItemStack;
 import io.github.thebusybiscuit.slimefun4.api.items.ItemGroup;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItemStack;
 import io.github.thebusybiscuit.slimefun4.api.recipes.RecipeType;
-import io.github.thebusybiscuit.slimefun4.libraries.dough.items.ItemStackSnapshot;
 import io.github.thebusybiscuit.slimefun4.libraries.dough.items.ItemUtils;
 import io.github.thebusybiscuit.slimefun4.utils.ChestMenuUtils;
 import me.mrCookieSlime.Slimefun.api.inventory.BlockMenu;
@@ -38,7 +34,8 @@ public class CraftingBlock extends MenuBlock {
 
     @Setter
     protected MachineLayout layout = MachineLayout.CRAFTING_DEFAULT;
-    private final List<CraftingBlockRecipe> recipes = new ArrayList<>();
+    private final CraftingRecipeTrie recipeTrie = new CraftingRecipeTrie();
+    private int recipeCount;
 
     public CraftingBlock(ItemGroup category, SlimefunItemStack item, RecipeType recipeType, ItemStack[] recipe) {
         super(category, item, recipeType, recipe);
@@ -98,8 +95,7 @@ public class CraftingBlock extends MenuBlock {
         if (inputs.length == 0) {
             throw new IllegalArgumentException("Cannot add recipe with no input!");
         }
-        CraftingBlockRecipe recipe = new CraftingBlockRecipe(output, inputs);
-        recipes.add(recipe);
+        recipeTrie.add(new CraftingBlockRecipe(recipeCount++, output, inputs));
         return this;
     }
 
@@ -111,13 +107,7 @@ public class CraftingBlock extends MenuBlock {
 
     @Nullable
     protected final CraftingBlockRecipe getOutput(ItemStack[] input) {
-        ItemStackSnapshot[] snapshots = ItemStackSnapshot.wrapArray(input);
-        for (CraftingBlockRecipe recipe : recipes) {
-            if (recipe.check(snapshots)) {
-                return recipe;
-            }
-        }
-        return null;
+        return recipeTrie.find(input);
     }
 
     @Override
@@ -1,11 +1,11 @@
 package io.github.mooy1.infinitylib.machines;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
-import io.github.mooy1.infinitylib.common.StackUtils;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
 import io.github.thebusybiscuit.slimefun4.libraries.dough.items.ItemStackSnapshot;
 import io.github.thebusybiscuit.slimefun4.libraries.dough.items.ItemUtils;
@@ -16,17 +16,22 @@ public final class CraftingBlockRecipe {
     private final ItemStack[] recipe;
     final ItemStack output;
     final SlimefunItem item;
+    @Getter(AccessLevel.NONE)
+    final int order;
 
-    CraftingBlockRecipe(ItemStack output, ItemStack[] recipe) {
+    CraftingBlockRecipe(int order, ItemStack output, ItemStack[] recipe) {
+        this.order = order;
         this.output = output;
         this.recipe = ItemStackSnapshot.wrapArray(recipe);
         this.item = SlimefunItem.getByItem(output);
     }
 
-    boolean check(ItemStackSnapshot[] input) {
+    /**
+     * Checks the amounts of an input whose slots are already known to be similar to this recipe
+     */
+    boolean checkAmounts(ItemStack[] input) {
         for (int i = 0; i < recipe.length; i++) {
-            boolean similar = StackUtils.isSimilar(input[i], recipe[i]);
-            if (!similar || (recipe[i] != null && recipe[i].getAmount() > input[i].getAmount())) {
+            if (recipe[i] != null && recipe[i].getAmount() > input[i].getAmount()) {
                 return false;
             }
         }
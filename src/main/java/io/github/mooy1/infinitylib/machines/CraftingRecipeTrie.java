@@ -0,0 +1,62 @@
+package io.github.mooy1.infinitylib.machines;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import org.bukkit.inventory.ItemStack;
+
+import io.github.mooy1.infinitylib.common.StackUtils;
+
+/**
+ * A trie over the similarity key of each slot of a {@link CraftingBlock}'s recipes,
+ * finding the recipe for an input costs one lookup per slot no matter how many recipes there are
+ */
+@ParametersAreNonnullByDefault
+final class CraftingRecipeTrie {
+
+    private final Node root = new Node();
+
+    void add(CraftingBlockRecipe recipe) {
+        Node node = root;
+        for (ItemStack item : recipe.recipe()) {
+            node = node.children.computeIfAbsent(StackUtils.similarityKey(item), k -> new Node());
+        }
+        node.recipes.add(recipe);
+    }
+
+    /**
+     * Returns the first added recipe which the input is similar to and has enough of,
+     * recipes shorter than the input only check their own slots like {@link CraftingBlockRecipe} does
+     */
+    @Nullable
+    CraftingBlockRecipe find(ItemStack[] input) {
+        CraftingBlockRecipe match = null;
+        Node node = root;
+        for (int i = 0; node != null; i++) {
+            for (CraftingBlockRecipe recipe : node.recipes) {
+                if (match != null && recipe.order > match.order) {
+                    break;
+                }
+                if (recipe.checkAmounts(input)) {
+                    match = recipe;
+                    break;
+                }
+            }
+            node = i < input.length ? node.children.get(StackUtils.similarityKey(input[i])) : null;
+        }
+        return match;
+    }
+
+    private static final class Node {
+
+        private final Map<Object, Node> children = new HashMap<>(4);
+        private final List<CraftingBlockRecipe> recipes = new ArrayList<>(1);
+
+    }
+
+}
@@ -1,9 +1,8 @@
 package io.github.mooy1.infinitylib.machines;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -11,17 +10,26 @@ import javax.annotation.ParametersAreNonnullByDefault;
 
 import lombok.Setter;
 
+import org.bukkit.Location;
 import org.bukkit.block.Block;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.inventory.ItemStack;
 
-import io.github.mooy1.infinitylib.common.StackUtils;
+import io.github.mooy1.infinitylib.common.Events;
+import io.github.mooy1.infinitylib.common.Scheduler;
 import io.github.mooy1.infinitylib.core.AbstractAddon;
 import io.github.thebusybiscuit.slimefun4.api.items.ItemGroup;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItemStack;
 import io.github.thebusybiscuit.slimefun4.api.recipes.RecipeType;
+import io.github.thebusybiscuit.slimefun4.libraries.dough.items.ItemUtils;
 import io.github.thebusybiscuit.slimefun4.utils.ChestMenuUtils;
+import me.mrCookieSlime.CSCoreLibPlugin.general.Inventory.ChestMenu;
 import me.mrCookieSlime.Slimefun.api.inventory.BlockMenu;
 import me.mrCookieSlime.Slimefun.api.inventory.BlockMenuPreset;
+import me.mrCookieSlime.Slimefun.api.inventory.DirtyChestMenu;
 
 @ParametersAreNonnullByDefault
 public final class MachineBlock extends AbstractMachineBlock {
@@ -29,7 +37,14 @@ public final class MachineBlock extends AbstractMachineBlock {
     @Setter
     protected MachineLayout layout = MachineLayout.MACHINE_DEFAULT;
     private final List<MachineBlockRecipe> recipes = new ArrayList<>();
+    private final ChunkIndexedMap<MachineState> states = new ChunkIndexedMap<>();
+    private volatile MachineBlockRecipe[][] recipeIndex;
     private int ticksPerOutput = -1;
+    private int speed = 1;
+    private boolean cacheRecipes;
+    private boolean sleepWhenIdle;
+    private boolean sleepWhenFull;
+    private boolean staggered;
 
     public MachineBlock(ItemGroup category, SlimefunItemStack item, RecipeType recipeType, ItemStack[] recipe) {
         super(category, item, recipeType, recipe);
@@ -40,8 +55,14 @@ public final class MachineBlock extends AbstractMachineBlock {
         if (inputs.length == 0) {
             throw new IllegalArgumentException("Cannot add recipe with no input!");
         }
-        MachineBlockRecipe recipe = new MachineBlockRecipe(output, inputs);
+        MachineBlockRecipe recipe = new MachineBlockRecipe(recipes.size(), output, inputs);
+        if (recipe.ids.length == 0) {
+            throw new IllegalArgumentException("Cannot add recipe with no input!");
+        }
         recipes.add(recipe);
+        if (recipeIndex != null) {
+            indexRecipe(recipe);
+        }
         return this;
     }
 
@@ -60,6 +81,87 @@ public final class MachineBlock extends AbstractMachineBlock {
         return this;
     }
 
+    /**
+     * Runs the matched recipe up to this many times per output, limited by the input available and the
+     * free output space, the recipe is matched once and the input consumed and output pushed in bulk.
+     * Shown to players with {@link MachineLore#speed(int)}
+     */
+    @Nonnull
+    public MachineBlock speed(int speed) {
+        if (speed < 1) {
+            throw new IllegalArgumentException("Speed must be at least 1!");
+        }
+        this.speed = speed;
+        return this;
+    }
+
+    /**
+     * Remembers the last recipe of each block and checks it before searching all recipes,
+     * useful for machines that usually process the same recipe over and over
+     */
+    @Nonnull
+    public MachineBlock cacheRecipes(boolean cacheRecipes) {
+        this.cacheRecipes = cacheRecipes;
+        return this;
+    }
+
+    /**
+     * Counts progress towards the next output per block instead of using the global tick count,
+     * starting each block at a different phase so that blocks placed together don't all output on the same tick
+     */
+    @Nonnull
+    public MachineBlock staggered(boolean staggered) {
+        this.staggered = staggered;
+        return this;
+    }
+
+    /**
+     * Stops searching for a recipe once a block finds none, until its input is changed by a player,
+     * cargo or a call to {@link #wake(Location)}
+     */
+    @Nonnull
+    public MachineBlock sleepWhenIdle(boolean sleepWhenIdle) {
+        this.sleepWhenIdle = sleepWhenIdle;
+        return this;
+    }
+
+    /**
+     * Stops matching and pushing output once a block's output is full, until its output or input
+     * is changed by a player, cargo or a call to {@link #wake(Location)}
+     */
+    @Nonnull
+    public MachineBlock sleepWhenFull(boolean sleepWhenFull) {
+        this.sleepWhenFull = sleepWhenFull;
+        return this;
+    }
+
+    /**
+     * Makes a sleeping block search for a recipe again on its next output tick,
+     * call this after changing a block's input or output slots through the api
+     */
+    public void wake(Location l) {
+        MachineState state = states.get(l);
+        if (state != null) {
+            state.wake();
+        }
+    }
+
+    /**
+     * Wakes the block on the next tick, for changes which are about to happen. Waking right away could let
+     * a tick read the slots before the change, find nothing to do and go back to sleep for good
+     */
+    private void wakeAfterChange(Location l) {
+        MachineState state = states.computeIfAbsent(l, k -> new MachineState());
+        if (state.queueWake()) {
+            Scheduler.run(state::queuedWake);
+        }
+    }
+
+    @Override
+    protected boolean rememberStatus() {
+        return true;
+    }
+
     @Override
     protected void setup(BlockMenuPreset preset) {
         preset.drawBackground(OUTPUT_BORDER, layout.outputBorder());
@@ -73,6 +175,44 @@ public final class MachineBlock extends AbstractMachineBlock {
         return layout.inputSlots();
     }
 
+    @Override
+    protected int[] getInputSlots(DirtyChestMenu menu, ItemStack item) {
+        // cargo asks for the input slots right before inserting
+        if ((sleepWhenIdle || sleepWhenFull) && menu instanceof BlockMenu blockMenu) {
+            wakeAfterChange(blockMenu.getLocation());
+        }
+        return getInputSlots();
+    }
+
+    @Override
+    protected int[] getOutputSlots(DirtyChestMenu menu, ItemStack item) {
+        // cargo asks for the output slots right before withdrawing
+        if ((sleepWhenIdle || sleepWhenFull) && menu instanceof BlockMenu blockMenu) {
+            wakeAfterChange(blockMenu.getLocation());
+        }
+        return getOutputSlots();
+    }
+
+    @Override
+    protected void onNewInstance(BlockMenu menu, Block b) {
+        if (sleepWhenIdle || sleepWhenFull) {
+            Location l = menu.getLocation();
+            // click handlers run before the click is applied
+            ChestMenu.MenuClickHandler wakeHandler = (player, i, itemStack, clickAction) -> {
+                wakeAfterChange(l);
+                return true;
+            };
+            for (int slot : layout.inputSlots()) {
+                menu.addMenuClickHandler(slot, wakeHandler);
+            }
+            for (int slot : layout.outputSlots()) {
+                menu.addMenuClickHandler(slot, wakeHandler);
+            }
+            menu.addPlayerInventoryClickHandler(wakeHandler);
+            menu.addMenuCloseHandler(player -> wake(l));
+        }
+    }
+
     @Override
     protected int[] getOutputSlots() {
         return layout.outputSlots();
@@ -83,64 +223,240 @@ public final class MachineBlock extends AbstractMachineBlock {
         if (ticksPerOutput == -1) {
             throw new IllegalStateException("You must call .ticksPerOutput() before registering!");
         }
+        buildRecipeIndex();
+        Events.addHandler(ChunkUnloadEvent.class, EventPriority.MONITOR, true, this::onChunkUnload);
         super.preRegister();
     }
 
+    @Override
+    protected void onBreak(BlockBreakEvent e, BlockMenu menu) {
+        super.onBreak(e, menu);
+        states.remove(menu.getLocation());
+    }
+
+    @Override
+    protected void onPlace(BlockPlaceEvent e, Block b) {
+        super.onPlace(e, b);
+        // a block removed without being broken may have left its state behind
+        states.remove(b.getLocation());
+    }
+
+    private void onChunkUnload(ChunkUnloadEvent e) {
+        states.removeChunk(e.getWorld(), e.getChunk().getX(), e.getChunk().getZ());
+    }
+
+    /**
+     * Indexes every recipe under its least common ingredient, a recipe can only match
+     * when all of its ingredients are present so one key is enough to find it
+     */
+    private void buildRecipeIndex() {
+        int[] counts = new int[MachineIngredients.size()];
+        for (MachineBlockRecipe recipe : recipes) {
+            for (int id : recipe.ids) {
+                counts[id]++;
+            }
+        }
+
+        MachineBlockRecipe[][] index = new MachineBlockRecipe[counts.length][];
+        for (MachineBlockRecipe recipe : recipes) {
+            int key = recipe.ids[0];
+            for (int id : recipe.ids) {
+                if (counts[id] < counts[key]) {
+                    key = id;
+                }
+            }
+            index[key] = append(index[key], recipe);
+        }
+        recipeIndex = index;
+    }
+
+    /**
+     * Indexes a recipe added after registration under its ingredient with the fewest candidates,
+     * the index is copied so that machines ticking on other threads never see it change
+     */
+    private void indexRecipe(MachineBlockRecipe recipe) {
+        MachineBlockRecipe[][] index = Arrays.copyOf(recipeIndex, Math.max(recipeIndex.length, MachineIngredients.size()));
+        int key = recipe.ids[0];
+        int size = Integer.MAX_VALUE;
+        for (int id : recipe.ids) {
+            int candidates = index[id] == null ? 0 : index[id].length;
+            if (candidates < size) {
+                key = id;
+                size = candidates;
+            }
+        }
+        index[key] = append(index[key], recipe);
+        recipeIndex = index;
+    }
+
+    @Nonnull
+    private static MachineBlockRecipe[] append(@Nullable MachineBlockRecipe[] candidates, MachineBlockRecipe recipe) {
+        if (candidates == null) {
+            return new MachineBlockRecipe[] { recipe };
+        }
+        MachineBlockRecipe[] copy = Arrays.copyOf(candidates, candidates.length + 1);
+        copy[candidates.length] = recipe;
+        return copy;
+    }
+
     @Override
     protected boolean process(Block b, BlockMenu menu) {
-        if (AbstractAddon.slimefunTickCount() % ticksPerOutput != 0) {
-            return true;
+        MachineState state = null;
+        int changes = 0;
+        if (sleepWhenIdle || sleepWhenFull || staggered || cacheRecipes) {
+            state = states.computeIfAbsent(menu.getLocation(), k -> new MachineState());
+            if (state.sleeping()) {
+                return false;
+            }
+            // read before the slots so that a change made while processing still wakes the block
+            changes = state.changes;
         }
 
-        int[] slots = layout.inputSlots();
-        ItemStack[] input = new ItemStack[slots.length];
-        for (int i = 0; i < slots.length; i++) {
-            input[i] = menu.getItemInSlot(slots[i]);
+        int progress;
+        if (staggered) {
+            if (state.progress == -1) {
+                state.progress = phase(menu.getLocation(), ticksPerOutput);
+            }
+            progress = state.progress = (state.progress + 1) % ticksPerOutput;
+        }
+        else {
+            progress = AbstractAddon.slimefunTickCount() % ticksPerOutput;
         }
 
-        MachineBlockRecipe recipe = getOutput(input);
-        if (recipe != null) {
-            ItemStack rem = menu.pushItem(recipe.output.clone(), layout.outputSlots());
-            if (rem == null || rem.getAmount() < recipe.output.getAmount()) {
-                recipe.consume();
-                if (menu.hasViewer()) {
-                    menu.replaceExistingItem(getStatusSlot(), PROCESSING_ITEM);
-                }
+        if (progress != 0) {
+            if (layout.progressBar() && progress % Math.max(1, layout.progressRefreshTicks()) == 0
+                    && isProgressItem(shownStatus(menu))) {
+                updateStatus(menu, progressItem((double) progress / ticksPerOutput));
+            }
+            return true;
+        }
+
+        MachineInput input = MachineInput.get().load(menu, layout.inputSlots());
+        MachineMatch match = cacheRecipes ? getCachedOutput(state, input) : getOutput(input);
+        if (match != null) {
+            ItemStack output = match.recipe.output;
+            int times = speed == 1 ? 1 : Math.min(match.recipe.times(input, speed), space(menu, output) / output.getAmount());
+            if (times > 1) {
+                pushBulk(menu, output, times);
+                match.recipe.consume(match, times);
+                updateStatus(menu, layout.progressBar() ? progressItem(0) : PROCESSING_ITEM);
+                return true;
+            }
+
+            ItemStack rem = menu.pushItem(output.clone(), layout.outputSlots());
+            if (rem == null || rem.getAmount() < output.getAmount()) {
+                match.recipe.consume(match);
+                updateStatus(menu, layout.progressBar() ? progressItem(0) : PROCESSING_ITEM);
                 return true;
             }
             else {
-                if (menu.hasViewer()) {
-                    menu.replaceExistingItem(getStatusSlot(), NO_ROOM_ITEM);
+                if (sleepWhenFull) {
+                    state.sleptAt = changes;
                 }
+                updateStatus(menu, NO_ROOM_ITEM);
                 return false;
             }
         }
 
-        if (menu.hasViewer()) {
-            menu.replaceExistingItem(getStatusSlot(), IDLE_ITEM);
+        if (sleepWhenIdle) {
+            state.sleptAt = changes;
         }
+        updateStatus(menu, IDLE_ITEM);
         return false;
     }
 
+    /**
+     * Counts how many of the output the output slots can still take
+     */
+    private int space(BlockMenu menu, ItemStack output) {
+        int space = 0;
+        for (int slot : layout.outputSlots()) {
+            ItemStack item = menu.getItemInSlot(slot);
+            if (item == null || item.getType().isAir()) {
+                space += output.getMaxStackSize();
+            }
+            else if (item.getAmount() < item.getMaxStackSize() && ItemUtils.canStack(item, output)) {
+                space += item.getMaxStackSize() - item.getAmount();
+            }
+        }
+        return space;
+    }
+
+    /**
+     * Pushes the output of several runs in full stacks, the caller must have checked the space
+     */
+    private void pushBulk(BlockMenu menu, ItemStack output, int times) {
+        int total = output.getAmount() * times;
+        int max = output.getMaxStackSize();
+        while (total > 0) {
+            ItemStack stack = output.clone();
+            stack.setAmount(Math.min(total, max));
+            menu.pushItem(stack, layout.outputSlots());
+            total -= stack.getAmount();
+        }
+    }
+
+    @Nullable
+    private MachineMatch getCachedOutput(MachineState state, MachineInput input) {
+        MachineBlockRecipe cached = state.recipe;
+        if (cached != null && cached.check(input)) {
+            return new MachineMatch(cached, input);
+        }
+
+        MachineBlockRecipe recipe = findRecipe(input);
+        if (recipe == null) {
+            return null;
+        }
+        state.recipe = recipe;
+        return new MachineMatch(recipe, input);
+    }
+
+    @Nullable
+    private MachineMatch getOutput(MachineInput input) {
+        MachineBlockRecipe recipe = findRecipe(input);
+        return recipe == null ? null : new MachineMatch(recipe, input);
+    }
+
+    /**
+     * Finds the recipe for the given items, kept with the same signature across
+     * versions so that the benchmarks can compare them
+     */
     @Nullable
     MachineBlockRecipe getOutput(ItemStack[] items) {
-        Map<String, MachineInput> map = new HashMap<>(2, 1F);
-        for (ItemStack item : items) {
-            if (item != null) {
-                String string = StackUtils.getId(item);
-                if (string == null) {
-                    string = item.getType().name();
+        return findRecipe(MachineInput.get().load(items));
+    }
+
+    @Nullable
+    private MachineBlockRecipe findRecipe(MachineInput input) {
+        MachineBlockRecipe[][] index = recipeIndex;
+        if (index == null) {
+            for (MachineBlockRecipe recipe : recipes) {
+                if (recipe.check(input)) {
+                    return recipe;
                 }
-                map.compute(string, (str, input) -> input == null ? new MachineInput(item) : input.add(item));
             }
+            return null;
         }
 
-        for (MachineBlockRecipe recipe : recipes) {
-            if (recipe.check(map)) {
-                return recipe;
+        // Candidates are stored in registration order, so the first match of each list is the
+        // earliest, and the earliest of those is the same recipe a full scan would find first
+        MachineBlockRecipe match = null;
+        for (int i = 0; i < input.size; i++) {
+            int id = input.keys[i];
+            MachineBlockRecipe[] candidates = id >= 0 && id < index.length ? index[id] : null;
+            if (candidates != null) {
+                for (MachineBlockRecipe recipe : candidates) {
+                    if (match != null && recipe.order > match.order) {
+                        break;
+                    }
+                    if (recipe.check(input)) {
+                        match = recipe;
+                        break;
+                    }
+                }
             }
         }
-        return null;
+        return match;
     }
 
     @Override
@@ -1,53 +1,68 @@
 package io.github.mooy1.infinitylib.machines;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.bukkit.inventory.ItemStack;
 
-import io.github.mooy1.infinitylib.common.StackUtils;
 import io.github.thebusybiscuit.slimefun4.libraries.dough.items.ItemUtils;
 
 final class MachineBlockRecipe {
 
-    private final String[] strings;
+    final int[] ids;
     private final int[] amounts;
     final ItemStack output;
-    private Map<String, MachineInput> lastMatch;
+    final int order;
 
-    MachineBlockRecipe(ItemStack output, ItemStack[] input) {
+    MachineBlockRecipe(int order, ItemStack output, ItemStack[] input) {
+        this.order = order;
         this.output = output;
 
-        Map<String, Integer> strings = new HashMap<>();
+        Map<Integer, Integer> ids = new LinkedHashMap<>();
         for (ItemStack item : input) {
             if (item != null && !item.getType().isAir()) {
-                String string = StackUtils.getId(item);
-                if (string == null) {
-                    string = item.getType().name();
-                }
-                strings.compute(string, (k, v) -> v == null ? item.getAmount() : v + item.getAmount());
+                ids.merge(MachineIngredients.register(item), item.getAmount(), Integer::sum);
             }
         }
 
-        this.strings = strings.keySet().toArray(new String[0]);
-        this.amounts = strings.values().stream().mapToInt(i -> i).toArray();
+        this.ids = ids.keySet().stream().mapToInt(i -> i).toArray();
+        this.amounts = ids.values().stream().mapToInt(i -> i).toArray();
     }
 
-    boolean check(Map<String, MachineInput> map) {
-        for (int i = 0; i < strings.length; i++) {
-            MachineInput input = map.get(strings[i]);
-            if (input == null || input.amount < amounts[i]) {
+    boolean check(MachineInput input) {
+        for (int i = 0; i < ids.length; i++) {
+            if (input.amount(ids[i]) < amounts[i]) {
                 return false;
             }
         }
-        lastMatch = map;
         return true;
     }
 
-    void consume() {
-        for (int i = 0; i < strings.length; i++) {
-            int consume = amounts[i];
-            for (ItemStack item : lastMatch.get(strings[i]).items) {
+    /**
+     * How many times this recipe can run on the input, at most max
+     */
+    int times(MachineInput input, int max) {
+        int times = max;
+        for (int i = 0; i < ids.length; i++) {
+            times = Math.min(times, input.amount(ids[i]) / amounts[i]);
+        }
+        return times;
+    }
+
+    void consume(MachineMatch match) {
+        consume(match, 1);
+    }
+
+    void consume(MachineMatch match, int times) {
+        MachineInput input = match.input;
+        for (int i = 0; i < ids.length; i++) {
+            int key = input.indexOf(ids[i]);
+            int consume = amounts[i] * times;
+            for (int j = 0; j < input.itemCount; j++) {
+                if (input.itemKeys[j] != key) {
+                    continue;
+                }
+                ItemStack item = input.items[j];
                 int amt = item.getAmount();
                 if (amt >= consume) {
                     ItemUtils.consumeItem(item, consume, true);
@@ -0,0 +1,45 @@
+package io.github.mooy1.infinitylib.machines;
+
+/**
+ * The in memory charge of a machine block, tracking whether it differs from block storage
+ */
+final class MachineCharge {
+
+    private int charge;
+    private boolean dirty;
+
+    MachineCharge(int charge) {
+        this.charge = charge;
+    }
+
+    synchronized int get() {
+        return charge;
+    }
+
+    synchronized void set(int charge) {
+        if (this.charge != charge) {
+            this.charge = charge;
+            dirty = true;
+        }
+    }
+
+    synchronized void add(int charge, int capacity) {
+        set(Math.min(capacity, this.charge + charge));
+    }
+
+    synchronized void remove(int charge) {
+        set(Math.max(0, this.charge - charge));
+    }
+
+    /**
+     * Returns the charge if it changed since the last call, otherwise -1
+     */
+    synchronized int takeChanged() {
+        if (!dirty) {
+            return -1;
+        }
+        dirty = false;
+        return charge;
+    }
+
+}
@@ -0,0 +1,66 @@
+package io.github.mooy1.infinitylib.machines;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+import lombok.experimental.UtilityClass;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import io.github.mooy1.infinitylib.common.StackUtils;
+
+/**
+ * Assigns dense int ids to machine ingredients, materials use their ordinal
+ * and slimefun items are numbered after them as recipes are registered
+ */
+@UtilityClass
+@ParametersAreNonnullByDefault
+final class MachineIngredients {
+
+    /**
+     * The id of a slimefun item that isn't used by any recipe
+     */
+    static final int UNKNOWN = -1;
+
+    private static final int MATERIALS = Material.values().length;
+    private static final Map<String, Integer> SLIMEFUN_IDS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the id of the item, assigning a new one if it is a slimefun item without one
+     */
+    static synchronized int register(ItemStack item) {
+        String string = StackUtils.getId(item);
+        if (string == null) {
+            return item.getType().ordinal();
+        }
+        Integer id = SLIMEFUN_IDS.get(string);
+        if (id == null) {
+            id = MATERIALS + SLIMEFUN_IDS.size();
+            SLIMEFUN_IDS.put(string, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the item, or {@link #UNKNOWN} if it's a slimefun item no recipe uses
+     */
+    static int id(ItemStack item) {
+        String string = StackUtils.getId(item);
+        if (string == null) {
+            return item.getType().ordinal();
+        }
+        Integer id = SLIMEFUN_IDS.get(string);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Returns one more than the highest id assigned so far
+     */
+    static int size() {
+        return MATERIALS + SLIMEFUN_IDS.size();
+    }
+
+}
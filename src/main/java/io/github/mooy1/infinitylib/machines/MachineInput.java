@@ -1,23 +1,97 @@
 package io.github.mooy1.infinitylib.machines;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
 
 import org.bukkit.inventory.ItemStack;
 
+import me.mrCookieSlime.Slimefun.api.inventory.BlockMenu;
+
+/**
+ * The input of a machine grouped by id, reused by each thread so that reading
+ * and matching a machine's input does not allocate anything
+ */
+@ParametersAreNonnullByDefault
 final class MachineInput {
 
-    final List<ItemStack> items = new ArrayList<>(2);
-    int amount;
+    private static final ThreadLocal<MachineInput> INPUT = ThreadLocal.withInitial(MachineInput::new);
 
-    MachineInput(ItemStack item) {
-        add(item);
+    ItemStack[] items = new ItemStack[2];
+    int[] itemKeys = new int[2];
+    int[] keys = new int[2];
+    int[] amounts = new int[2];
+    int itemCount;
+    int size;
+
+    @Nonnull
+    static MachineInput get() {
+        return INPUT.get();
     }
 
-    MachineInput add(ItemStack item) {
-        items.add(item);
-        amount += item.getAmount();
+    @Nonnull
+    MachineInput load(BlockMenu menu, int[] slots) {
+        clear(slots.length);
+        for (int slot : slots) {
+            ItemStack item = menu.getItemInSlot(slot);
+            if (item != null) {
+                add(item);
+            }
+        }
         return this;
     }
 
+    @Nonnull
+    MachineInput load(ItemStack[] items) {
+        clear(items.length);
+        for (ItemStack item : items) {
+            if (item != null) {
+                add(item);
+            }
+        }
+        return this;
+    }
+
+    int indexOf(int key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int amount(int key) {
+        int i = indexOf(key);
+        return i == -1 ? 0 : amounts[i];
+    }
+
+    private void add(ItemStack item) {
+        int id = MachineIngredients.id(item);
+        int key = indexOf(id);
+        if (key == -1) {
+            key = size++;
+            keys[key] = id;
+            amounts[key] = 0;
+        }
+        amounts[key] += item.getAmount();
+        items[itemCount] = item;
+        itemKeys[itemCount++] = key;
+    }
+
+    private void clear(int capacity) {
+        if (items.length < capacity) {
+            items = new ItemStack[capacity];
+            itemKeys = new int[capacity];
+            keys = new int[capacity];
+            amounts = new int[capacity];
+        }
+        else {
+            Arrays.fill(items, 0, itemCount, null);
+        }
+        itemCount = 0;
+        size = 0;
+    }
+
 }
@@ -57,4 +57,14 @@ public final class MachineLayout {
     private int[] background;
     private int statusSlot;
 
+    /**
+     * Whether machines show a progress bar between outputs instead of a plain processing item
+     */
+    private boolean progressBar;
+
+    /**
+     * How many slimefun ticks pass between progress bar updates
+     */
+    private int progressRefreshTicks = 5;
+
 }
@@ -0,0 +1,17 @@
+package io.github.mooy1.infinitylib.machines;
+
+/**
+ * The result of matching a {@link MachineBlockRecipe} against a block's input,
+ * owned by the caller so that matching holds no shared state between blocks
+ */
+final class MachineMatch {
+
+    final MachineBlockRecipe recipe;
+    final MachineInput input;
+
+    MachineMatch(MachineBlockRecipe recipe, MachineInput input) {
+        this.recipe = recipe;
+        this.input = input;
+    }
+
+}
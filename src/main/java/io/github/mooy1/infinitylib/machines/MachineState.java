@@ -0,0 +1,45 @@
+package io.github.mooy1.infinitylib.machines;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per block state of a {@link MachineBlock}, kept while the block is loaded
+ */
+final class MachineState {
+
+    MachineBlockRecipe recipe;
+
+    /**
+     * Ticks since the last output when staggered, -1 until the block's phase is set
+     */
+    int progress = -1;
+
+    /**
+     * Bumped whenever the input or output may have changed, the block sleeps while this equals {@link #sleptAt}
+     */
+    volatile int changes;
+    int sleptAt = -1;
+
+    boolean sleeping() {
+        return sleptAt == changes;
+    }
+
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+
+    void wake() {
+        changes++;
+    }
+
+    /**
+     * Returns true if no wake was queued yet, in which case the caller must run {@link #queuedWake()} later
+     */
+    boolean queueWake() {
+        return wakeQueued.compareAndSet(false, true);
+    }
+
+    void queuedWake() {
+        wakeQueued.set(false);
+        changes++;
+    }
+
+}
@@ -3,6 +3,7 @@ package io.github.mooy1.infinitylib.machines;
 import java.util.List;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 import io.github.thebusybiscuit.slimefun4.libraries.dough.items.CustomItemStack;
@@ -37,6 +38,32 @@ public abstract class MenuBlock extends SlimefunItem {
     public static final ItemStack OUTPUT_BORDER = CustomItemStack.create(ChestMenuUtils.getOutputSlotTexture(), "&6Output");
     public static final ItemStack INPUT_BORDER = CustomItemStack.create(ChestMenuUtils.getInputSlotTexture(), "&9Input");
     public static final ItemStack BACKGROUND_ITEM = ChestMenuUtils.getBackground();
+    private static final ItemStack[] PROGRESS_ITEMS = new ItemStack[11];
+
+    static {
+        for (int i = 0; i < PROGRESS_ITEMS.length; i++) {
+            PROGRESS_ITEMS[i] = CustomItemStack.create(Material.LIME_STAINED_GLASS_PANE, "&aProcessing...",
+                    "&a" + "|".repeat(i) + "&7" + "|".repeat(10 - i) + " &f" + i * 10 + "%");
+        }
+    }
+
+    /**
+     * Returns a processing status item with a progress bar, progress is from 0 to 1 and shown in steps of 10%
+     */
+    @Nonnull
+    public static ItemStack progressItem(double progress) {
+        int step = (int) (progress * 10);
+        return PROGRESS_ITEMS[Math.max(0, Math.min(10, step))];
+    }
+
+    static boolean isProgressItem(@Nullable ItemStack item) {
+        for (ItemStack progressItem : PROGRESS_ITEMS) {
+            if (progressItem == item) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     public MenuBlock(ItemGroup category, SlimefunItemStack item, RecipeType recipeType, ItemStack[] recipe) {
         super(category, item, recipeType, recipe);
@@ -74,7 +101,7 @@ public abstract class MenuBlock extends SlimefunItem {
             case INSERT:
                 return getInputSlots(menu, item);
             case WITHDRAW:
-                return getOutputSlots();
+                return getOutputSlots(menu, item);
             default:
                 return new int[0];
         }
@@ -86,6 +113,10 @@ public abstract class MenuBlock extends SlimefunItem {
 
     protected abstract int[] getInputSlots();
 
+    protected int[] getOutputSlots(DirtyChestMenu menu, ItemStack item) {
+        return getOutputSlots();
+    }
+
     protected abstract int[] getOutputSlots();
 
     protected void onNewInstance(BlockMenu menu, Block b) {
@@ -1,10 +1,16 @@
 package io.github.mooy1.infinitylib.machines;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
 import javax.annotation.ParametersAreNonnullByDefault;
 
 import org.bukkit.block.Block;
 import org.bukkit.inventory.ItemStack;
 
+import io.github.mooy1.infinitylib.common.Scheduler;
+import io.github.mooy1.infinitylib.core.AbstractAddon;
 import io.github.thebusybiscuit.slimefun4.api.items.ItemGroup;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItemStack;
@@ -17,6 +23,8 @@ import me.mrCookieSlime.Slimefun.api.inventory.BlockMenu;
 @ParametersAreNonnullByDefault
 public abstract class TickingMenuBlock extends MenuBlock {
 
+    private List<Block> batch = new ArrayList<>();
+
     public TickingMenuBlock(ItemGroup category, SlimefunItemStack item, RecipeType recipeType, ItemStack[] recipe) {
         super(category, item, recipeType, recipe);
 
@@ -24,24 +32,118 @@ public abstract class TickingMenuBlock extends MenuBlock {
 
             @Override
             public boolean isSynchronized() {
-                return synchronous();
+                // batches are collected off the main thread and handed over in one task
+                return !batched() && synchronous();
+            }
+
+            @Override
+            public void uniqueTick() {
+                if (batched()) {
+                    flushBatch();
+                }
             }
 
             @Override
             public void tick(Block b, SlimefunItem item, Config data) {
-                BlockMenu menu = BlockStorage.getInventory(b);
-                if (menu != null) {
-                    TickingMenuBlock.this.tick(b, menu);
+                if (batched()) {
+                    batch.add(b);
+                }
+                else {
+                    BlockMenu menu = BlockStorage.getInventory(b);
+                    if (menu != null) {
+                        TickingMenuBlock.this.tick(b, menu);
+                    }
                 }
             }
 
         });
     }
 
+    /**
+     * Hands the blocks collected during the last slimefun tick to {@link #tick(List, List)},
+     * called once at the start of each slimefun tick
+     */
+    private void flushBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Block> blocks = batch;
+        batch = new ArrayList<>(blocks.size());
+        if (synchronous()) {
+            Scheduler.run(() -> tickBatch(blocks));
+        }
+        else {
+            tickBatch(blocks);
+        }
+    }
+
+    private void tickBatch(List<Block> blocks) {
+        List<Block> ticked = new ArrayList<>(blocks.size());
+        List<BlockMenu> menus = new ArrayList<>(blocks.size());
+        for (Block b : blocks) {
+            try {
+                BlockMenu menu = BlockStorage.getInventory(b);
+                // the block may have been broken or replaced since it was collected
+                if (menu != null && menu.getPreset().getID().equals(getId())) {
+                    ticked.add(b);
+                    menus.add(menu);
+                }
+            }
+            catch (RuntimeException e) {
+                logTickError(b, e);
+            }
+        }
+        if (!ticked.isEmpty()) {
+            try {
+                tick(ticked, menus);
+            }
+            catch (RuntimeException e) {
+                AbstractAddon.log(Level.SEVERE, "Error while ticking a batch of " + getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Ticks one block of a batch, an error is logged against that block instead of dropping the rest of
+     * the batch or being reported by slimefun against whichever block happened to start the batch
+     */
+    private void tickSafely(Block b, BlockMenu menu) {
+        try {
+            tick(b, menu);
+        }
+        catch (RuntimeException e) {
+            logTickError(b, e);
+        }
+    }
+
+    private void logTickError(Block b, RuntimeException e) {
+        AbstractAddon.log(Level.SEVERE, "Error while ticking " + getId() + " at " + b.getWorld().getName()
+                + " " + b.getX() + " " + b.getY() + " " + b.getZ(), e);
+    }
+
     protected abstract void tick(Block b, BlockMenu menu);
 
+    /**
+     * Ticks every block of this machine that ticked during one slimefun tick together, only used when
+     * {@link #batched()} is true. Override to share lookups or flush state once per batch,
+     * by default each block is ticked on its own and an error in one block doesn't stop the others.
+     */
+    protected void tick(List<Block> blocks, List<BlockMenu> menus) {
+        for (int i = 0; i < blocks.size(); i++) {
+            tickSafely(blocks.get(i), menus.get(i));
+        }
+    }
+
     protected boolean synchronous() {
         return false;
     }
 
+    /**
+     * Whether blocks are collected during each slimefun tick and ticked together at the start of the next one,
+     * synchronous batches run in a single main thread task instead of one task per block
+     */
+    protected boolean batched() {
+        return false;
+    }
+
 }
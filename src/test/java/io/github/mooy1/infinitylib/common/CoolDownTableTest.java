@@ -0,0 +1,122 @@
+package io.github.mooy1.infinitylib.common;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Keys with an msb of 0 and a small lsb land in slot {@code lsb & 15} of a new table,
+ * which is used to build collision chains for the backward shift in removal
+ */
+class CoolDownTableTest {
+
+    @Test
+    void testRemoveChainHead() {
+        CoolDownTable table = new CoolDownTable();
+        table.put(0, 1, 10);
+        table.put(0, 17, 20);
+        table.put(0, 33, 30);
+        table.put(0, 2, 40);
+
+        table.remove(0, 1, 10);
+
+        assertEquals(CoolDownTable.EMPTY, table.get(0, 1));
+        assertEquals(20, table.get(0, 17));
+        assertEquals(30, table.get(0, 33));
+        assertEquals(40, table.get(0, 2));
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    void testRemoveChainMiddle() {
+        CoolDownTable table = new CoolDownTable();
+        table.put(0, 1, 10);
+        table.put(0, 17, 20);
+        table.put(0, 33, 30);
+
+        table.remove(0, 17, 20);
+
+        assertEquals(10, table.get(0, 1));
+        assertEquals(CoolDownTable.EMPTY, table.get(0, 17));
+        assertEquals(30, table.get(0, 33));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void testRemoveDoesNotShiftEntryBeforeItsSlot() {
+        CoolDownTable table = new CoolDownTable();
+        table.put(0, 1, 10);
+        table.put(0, 17, 20);
+        // sits in its own slot right after the chain, so it must stay there when the chain shifts back
+        table.put(0, 3, 30);
+
+        table.remove(0, 1, 10);
+
+        assertEquals(20, table.get(0, 17));
+        assertEquals(30, table.get(0, 3));
+        table.remove(0, 17, 20);
+        assertEquals(30, table.get(0, 3));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testRemoveWrapsAround() {
+        CoolDownTable table = new CoolDownTable();
+        table.put(0, 15, 10);
+        table.put(0, 31, 20);
+        table.put(0, 47, 30);
+        table.put(0, 16, 40);
+
+        table.remove(0, 15, 10);
+
+        assertEquals(CoolDownTable.EMPTY, table.get(0, 15));
+        assertEquals(20, table.get(0, 31));
+        assertEquals(30, table.get(0, 47));
+        assertEquals(40, table.get(0, 16));
+
+        table.remove(0, 31, 20);
+
+        assertEquals(30, table.get(0, 47));
+        assertEquals(40, table.get(0, 16));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void testRemoveOnlyMatchingTime() {
+        CoolDownTable table = new CoolDownTable();
+        table.put(0, 1, 10);
+
+        table.remove(0, 1, 11);
+
+        assertEquals(10, table.get(0, 1));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testMatchesMap() {
+        CoolDownTable table = new CoolDownTable();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(64);
+            long time = random.nextInt(4);
+            if (random.nextBoolean()) {
+                table.put(0, key, time);
+                expected.put(key, time);
+            }
+            else {
+                table.remove(0, key, time);
+                expected.remove(key, time);
+            }
+        }
+        for (long key = 0; key < 64; key++) {
+            assertEquals((long) expected.getOrDefault(key, CoolDownTable.EMPTY), table.get(0, key));
+        }
+        assertEquals(expected.size(), table.size());
+    }
+
+}